@@ -147,7 +147,12 @@ class OrderCard extends LitElement {
           <span class="secondary">${this.header && this.header.secondary}</span>
         </div>
 
-        <div class="wrapper" @click="${this._cardClick}">
+        <div
+          class="wrapper"
+          @click="${this._cardClick}"
+          @mouseenter="${this._hoverStart}"
+          @mouseleave="${this._hoverEnd}"
+        >
           <div class="info-wrapper">
             <order-status-badge
               class="badge"
@@ -177,7 +182,7 @@ class OrderCard extends LitElement {
               ${map(this.orderCard && this.orderCard.items, (item) => html`
                 <div class="goods-item">
                   <span class="count">${item.quantity}</span>
-                  <div>${item.product.name}</div>
+                  <div>${item.productName}</div>
                 </div>`)}
             </div>
           </div>
@@ -199,8 +204,25 @@ class OrderCard extends LitElement {
   }
 
   _cardClick() {
+    this._hoverEnd();
     this.dispatchEvent(new CustomEvent('card-click'));
   }
+
+  // Only cards the pointer rests on, not every card it passes over
+  _hoverStart() {
+    this._hoverEnd();
+    this._hoverTimeout = setTimeout(() => {
+      this._hoverTimeout = undefined;
+      this.dispatchEvent(new CustomEvent('card-hover'));
+    }, 150);
+  }
+
+  _hoverEnd() {
+    if (this._hoverTimeout) {
+      clearTimeout(this._hoverTimeout);
+      this._hoverTimeout = undefined;
+    }
+  }
 }
 
 customElements.define(OrderCard.is, OrderCard);
@@ -6,6 +6,7 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.web.servlet.error.ErrorMvcAutoConfiguration;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 import com.vaadin.starter.bakery.app.security.SecurityConfiguration;
@@ -28,6 +29,7 @@ import com.vaadin.starter.bakery.ui.MainView;
  *       especificando pacotes relevantes para scan e excluindo a configuração de erro padrão do MVC.</li>
  *   <li>{@link EnableJpaRepositories} - Habilita repositórios JPA no pacote do {@link UserRepository}.</li>
  *   <li>{@link EntityScan} - Habilita o scan de entidades JPA no pacote do {@link User}.</li>
+ *   <li>{@link EnableCaching} - Habilita a cache das contagens usadas pelas grelhas.</li>
  * </ul>
  * </p>
  *
@@ -60,6 +62,7 @@ import com.vaadin.starter.bakery.ui.MainView;
 		UserService.class }, exclude = ErrorMvcAutoConfiguration.class)
 @EnableJpaRepositories(basePackageClasses = { UserRepository.class })
 @EntityScan(basePackageClasses = { User.class })
+@EnableCaching
 public class Application extends SpringBootServletInitializer {
 
 	/**
@@ -0,0 +1,75 @@
+package com.vaadin.starter.bakery.app;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Executors for work taken off the UI request threads. Also enables the
+ * {@link org.springframework.scheduling.annotation.Scheduled} background jobs.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfiguration {
+
+	public static final String SEARCH_EXECUTOR = "searchExecutor";
+
+	public static final String DASHBOARD_EXECUTOR = "dashboardExecutor";
+
+	public static final String PREFETCH_EXECUTOR = "prefetchExecutor";
+
+	public static final String TASK_SCHEDULER = "taskScheduler";
+
+	/**
+	 * Runs debounced searches, see
+	 * {@link com.vaadin.starter.bakery.ui.components.SearchPipeline}.
+	 */
+	@Bean(name = SEARCH_EXECUTOR, destroyMethod = "shutdownNow")
+	public ScheduledExecutorService searchExecutor(@Value("${bakery.search.threads:4}") int threads) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("search-");
+		threadFactory.setDaemon(true);
+		return Executors.newScheduledThreadPool(threads, threadFactory);
+	}
+
+	/**
+	 * Runs the dashboard queries in parallel, see
+	 * {@link com.vaadin.starter.bakery.ui.views.dashboard.DashboardSnapshotService}.
+	 */
+	@Bean(name = DASHBOARD_EXECUTOR, destroyMethod = "shutdownNow")
+	public ExecutorService dashboardExecutor(@Value("${bakery.dashboard.threads:4}") int threads) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dashboard-");
+		threadFactory.setDaemon(true);
+		return Executors.newFixedThreadPool(threads, threadFactory);
+	}
+
+	/**
+	 * Loads the orders the user is about to open, see
+	 * {@link com.vaadin.starter.bakery.ui.views.storefront.OrderPrefetcher}.
+	 */
+	@Bean(name = PREFETCH_EXECUTOR, destroyMethod = "shutdownNow")
+	public ExecutorService prefetchExecutor(@Value("${bakery.prefetch.threads:2}") int threads) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("prefetch-");
+		threadFactory.setDaemon(true);
+		return Executors.newFixedThreadPool(threads, threadFactory);
+	}
+
+	/**
+	 * Runs the scheduled jobs and delayed clean-ups of the views. Spring Boot
+	 * does not create one next to the search executor.
+	 */
+	@Bean(name = TASK_SCHEDULER)
+	public ThreadPoolTaskScheduler taskScheduler(@Value("${bakery.scheduler.threads:2}") int threads) {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(threads);
+		scheduler.setThreadNamePrefix("scheduler-");
+		scheduler.setDaemon(true);
+		return scheduler;
+	}
+}
@@ -4,20 +4,34 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Supplier;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.vaadin.flow.spring.annotation.SpringComponent;
 import com.vaadin.starter.bakery.backend.data.OrderState;
 import com.vaadin.starter.bakery.backend.data.Role;
+import com.vaadin.starter.bakery.backend.data.TextSearch;
 import com.vaadin.starter.bakery.backend.data.entity.Customer;
 import com.vaadin.starter.bakery.backend.data.entity.HistoryItem;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
@@ -25,7 +39,6 @@ import com.vaadin.starter.bakery.backend.data.entity.OrderItem;
 import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
 import com.vaadin.starter.bakery.backend.data.entity.Product;
 import com.vaadin.starter.bakery.backend.data.entity.User;
-import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
 import com.vaadin.starter.bakery.backend.repositories.PickupLocationRepository;
 import com.vaadin.starter.bakery.backend.repositories.ProductRepository;
 import com.vaadin.starter.bakery.backend.repositories.UserRepository;
@@ -40,28 +53,48 @@ public class DataGenerator implements HasLogger {
 	private static final String[] FIRST_NAME = new String[] { "Ori", "Amanda", "Octavia", "Laurel", "Lael", "Delilah",
 			"Jason", "Skyler", "Arsenio", "Haley", "Lionel", "Sylvia", "Jessica", "Lester", "Ferdinand", "Elaine",
 			"Griffin", "Kerry", "Dominique" };
+	private static final String[] LOCATION_TYPE = new String[] { "Store", "Kiosk", "Market", "Station", "Café" };
+	private static final String[] COMMENT = new String[] { "Customer called to ask about the order",
+			"Customer wants to change the pickup time", "Please use less sugar", "Write \"Happy birthday\" on top",
+			"Customer will be late", "Added candles", "Checked allergies with the customer", "Box it as a gift" };
 	private static final String[] LAST_NAME = new String[] { "Carter", "Castro", "Rich", "Irwin", "Moore", "Hendricks",
 			"Huber", "Patton", "Wilkinson", "Thornton", "Nunez", "Macias", "Gallegos", "Blevins", "Mejia", "Pickett",
 			"Whitney", "Farmer", "Henry", "Chen", "Macias", "Rowland", "Pierce", "Cortez", "Noble", "Howard", "Nixon",
 			"Mcbride", "Leblanc", "Russell", "Carver", "Benton", "Maldonado", "Lyons" };
 
-	private final Random random = new Random(1L);
+	// Flushed in JDBC batches of hibernate.jdbc.batch_size statements
+	private static final int ORDERS_PER_TRANSACTION = 500;
+	private static final int DAYS_IN_FLIGHT_PER_THREAD = 4;
+
+	private final Random random;
+	private final long seed;
+	private final int threads;
+	private final DatasetProfile profile;
+	private final Set<String> productNames = new HashSet<>();
 
-	private OrderRepository orderRepository;
 	private UserRepository userRepository;
 	private ProductRepository productRepository;
 	private PickupLocationRepository pickupLocationRepository;
 	private PasswordEncoder passwordEncoder;
+	private EntityManager entityManager;
+	private TransactionTemplate transactionTemplate;
 
 	@Autowired
-	public DataGenerator(OrderRepository orderRepository, UserRepository userRepository,
-			ProductRepository productRepository, PickupLocationRepository pickupLocationRepository,
-			PasswordEncoder passwordEncoder) {
-		this.orderRepository = orderRepository;
+	public DataGenerator(UserRepository userRepository, ProductRepository productRepository,
+			PickupLocationRepository pickupLocationRepository, PasswordEncoder passwordEncoder,
+			EntityManager entityManager, PlatformTransactionManager transactionManager,
+			@Value("${bakery.data.profile:demo}") DatasetProfile profile, @Value("${bakery.data.seed:1}") long seed,
+			@Value("${bakery.data.threads:0}") int threads) {
 		this.userRepository = userRepository;
 		this.productRepository = productRepository;
 		this.pickupLocationRepository = pickupLocationRepository;
 		this.passwordEncoder = passwordEncoder;
+		this.entityManager = entityManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.profile = profile;
+		this.seed = seed;
+		this.random = new Random(seed);
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
 	}
 
 	@PostConstruct
@@ -71,7 +104,7 @@ public class DataGenerator implements HasLogger {
 			return;
 		}
 
-		getLogger().info("Generating demo data");
+		getLogger().info("Generating demo data using the {} profile", profile);
 
 		getLogger().info("... generating users");
 		User baker = createBaker(userRepository, passwordEncoder);
@@ -82,69 +115,158 @@ public class DataGenerator implements HasLogger {
 
 		getLogger().info("... generating products");
 		// A set of products that will be used for creating orders.
-		Supplier<Product> productSupplier = createProducts(productRepository, 8);
+		Function<Random, Product> productSupplier = createProducts(productRepository, profile.getProducts());
 		// A set of products without relationships that can be deleted
 		createProducts(productRepository, 4);
 
 		getLogger().info("... generating pickup locations");
-		Supplier<PickupLocation> pickupLocationSupplier = createPickupLocations(pickupLocationRepository);
+		Function<Random, PickupLocation> pickupLocationSupplier = createPickupLocations(pickupLocationRepository,
+				profile.getPickupLocations());
 
 		getLogger().info("... generating orders");
-		createOrders(orderRepository, productSupplier, pickupLocationSupplier, barista, baker);
+		createOrders(productSupplier, pickupLocationSupplier, barista, baker);
 
 		getLogger().info("Generated demo data");
 	}
 
-	private void fillCustomer(Customer customer) {
-		String first = getRandom(FIRST_NAME);
-		String last = getRandom(LAST_NAME);
+	private void fillCustomer(Random random, Customer customer) {
+		if (profile.getCustomers() > 0) {
+			// A returning customer, always with the same name and phone number
+			int index = getSkewedIndex(random, profile.getCustomers());
+			random = new Random(seed * 31 - index);
+		}
+		String first = getRandom(random, FIRST_NAME);
+		String last = getRandom(random, LAST_NAME);
 		customer.setFullName(first + " " + last);
-		customer.setPhoneNumber(getRandomPhone());
+		customer.setPhoneNumber(getRandomPhone(random));
 		if (random.nextInt(10) == 0) {
 			customer.setDetails("Very important customer");
 		}
 	}
 
-	private String getRandomPhone() {
+	private String getRandomPhone(Random random) {
 		return "+1-555-" + String.format("%04d", random.nextInt(10000));
 	}
 
-	private void createOrders(OrderRepository orderRepo, Supplier<Product> productSupplier,
-			Supplier<PickupLocation> pickupLocationSupplier, User barista, User baker) {
-		int yearsToInclude = 2;
+	private void createOrders(Function<Random, Product> productSupplier,
+			Function<Random, PickupLocation> pickupLocationSupplier, User barista, User baker) {
+		int yearsToInclude = profile.getYears();
 		LocalDate now = LocalDate.now();
 		LocalDate oldestDate = LocalDate.of(now.getYear() - yearsToInclude, 1, 1);
 		LocalDate newestDate = now.plusMonths(1L);
+		long days = ChronoUnit.DAYS.between(oldestDate, newestDate);
+		long start = System.nanoTime();
 
 		// Create first today's order
-		Order order = createOrder(productSupplier, pickupLocationSupplier, barista, baker, now);
+		Order order = createOrder(new Random(seed), productSupplier, pickupLocationSupplier, barista, baker, now);
 		order.setDueTime(LocalTime.of(8, 0));
 		order.setHistory(order.getHistory().subList(0, 1));
 		order.setItems(order.getItems().subList(0, 1));
-		orderRepo.save(order);
+		List<Order> batch = new ArrayList<>();
+		batch.add(order);
+
+		// Days are generated on worker threads and written in date order, so
+		// that both the data and the ids only depend on the seed
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("data-generator-");
+		threadFactory.setDaemon(true);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+		Deque<Future<List<Order>>> pending = new ArrayDeque<>();
+		long orders = 0;
+		long rows = 0;
+		double averageOrdersPerDay = (double) profile.getOrders() / days;
+		try {
+			LocalDate dueDate = oldestDate;
+			while (dueDate.isBefore(newestDate) || !pending.isEmpty()) {
+				while (dueDate.isBefore(newestDate) && pending.size() < threads * DAYS_IN_FLIGHT_PER_THREAD) {
+					LocalDate day = dueDate;
+					double position = (double) ChronoUnit.DAYS.between(oldestDate, day) / days;
+					pending.add(executor.submit(() -> createOrders(day, position, averageOrdersPerDay,
+							productSupplier, pickupLocationSupplier, barista, baker)));
+					dueDate = dueDate.plusDays(1);
+				}
+				batch.addAll(pending.remove().get());
+				if (batch.size() >= ORDERS_PER_TRANSACTION || pending.isEmpty()) {
+					orders += batch.size();
+					rows += persist(batch);
+					batch.clear();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while generating orders", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Generating orders failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		getLogger().info("... generated {} orders, {} rows in {} s ({} rows/s)", orders, rows,
+				String.format("%.1f", seconds), Math.round(rows / seconds));
+	}
 
-		for (LocalDate dueDate = oldestDate; dueDate.isBefore(newestDate); dueDate = dueDate.plusDays(1)) {
+	/**
+	 * Creates the orders of a day, <code>position</code> being the relative
+	 * position of the day in the generated period, from 0 to 1.
+	 */
+	private List<Order> createOrders(LocalDate dueDate, double position, double averageOrdersPerDay,
+			Function<Random, Product> productSupplier, Function<Random, PickupLocation> pickupLocationSupplier,
+			User barista, User baker) {
+		// Seeded per day so the result does not depend on the thread
+		Random random = new Random(seed * 31 + dueDate.toEpochDay());
+		int ordersThisDay;
+		if (profile.isSkewed()) {
+			// Growing over time and busier on weekends, averaging to the
+			// order count of the profile
+			double weekday = dueDate.getDayOfWeek().getValue() >= 6 ? 1.4 : 0.84;
+			double trend = 0.5 + position;
+			ordersThisDay = (int) Math.round(averageOrdersPerDay * weekday * trend * (0.5 + random.nextDouble()));
+		} else {
+			LocalDate now = LocalDate.now();
 			// Create a slightly upwards trend - everybody wants to be
 			// successful
-			int relativeYear = dueDate.getYear() - now.getYear() + yearsToInclude;
+			int relativeYear = dueDate.getYear() - now.getYear() + profile.getYears();
 			int relativeMonth = relativeYear * 12 + dueDate.getMonthValue();
 			double multiplier = 1.0 + 0.03 * relativeMonth;
-			int ordersThisDay = (int) (random.nextInt(10) + 1 * multiplier);
-			for (int i = 0; i < ordersThisDay; i++) {
-				orderRepo.save(createOrder(productSupplier, pickupLocationSupplier, barista, baker, dueDate));
+			ordersThisDay = (int) (random.nextInt(10) + 1 * multiplier);
+		}
+		List<Order> orders = new ArrayList<>(ordersThisDay);
+		for (int i = 0; i < ordersThisDay; i++) {
+			orders.add(createOrder(random, productSupplier, pickupLocationSupplier, barista, baker, dueDate));
+		}
+		return orders;
+	}
+
+	/**
+	 * Inserts the orders in one transaction, in JDBC batches, and returns the
+	 * number of rows inserted.
+	 */
+	private long persist(List<Order> orders) {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (Order order : orders) {
+				entityManager.persist(order);
 			}
+			entityManager.flush();
+			entityManager.clear();
+		});
+
+		long rows = 0;
+		for (Order order : orders) {
+			String searchKey = TextSearch.normalize(order.getCustomer().getFullName());
+			rows += 2 + order.getItems().size() + order.getHistory().size() + TextSearch.trigrams(searchKey).size();
 		}
+		return rows;
 	}
 
-	private Order createOrder(Supplier<Product> productSupplier, Supplier<PickupLocation> pickupLocationSupplier,
-			User barista, User baker, LocalDate dueDate) {
+	private Order createOrder(Random random, Function<Random, Product> productSupplier,
+			Function<Random, PickupLocation> pickupLocationSupplier, User barista, User baker, LocalDate dueDate) {
 		Order order = new Order(barista);
 
-		fillCustomer(order.getCustomer());
-		order.setPickupLocation(pickupLocationSupplier.get());
+		fillCustomer(random, order.getCustomer());
+		order.setPickupLocation(pickupLocationSupplier.apply(random));
 		order.setDueDate(dueDate);
-		order.setDueTime(getRandomDueTime());
-		order.changeState(barista, getRandomState(order.getDueDate()));
+		order.setDueTime(getRandomDueTime(random));
+		order.changeState(barista, getRandomState(random, order.getDueDate()));
 
 		int itemCount = random.nextInt(3);
 		List<OrderItem> items = new ArrayList<>();
@@ -152,7 +274,7 @@ public class DataGenerator implements HasLogger {
 			OrderItem item = new OrderItem();
 			Product product;
 			do {
-				product = productSupplier.get();
+				product = productSupplier.apply(random);
 			} while (containsProduct(items, product));
 			item.setProduct(product);
 			item.setQuantity(random.nextInt(10) + 1);
@@ -167,12 +289,17 @@ public class DataGenerator implements HasLogger {
 		}
 		order.setItems(items);
 
-		order.setHistory(createOrderHistory(order, barista, baker));
+		List<HistoryItem> history = createOrderHistory(random, order, barista, baker);
+		if (profile.isSkewed()) {
+			addComments(random, history, barista, order.getDueDate().atTime(order.getDueTime()));
+		}
+		order.setHistory(history);
+		order.setCreatedAt(history.get(0).getTimestamp());
 
 		return order;
 	}
 
-	private List<HistoryItem> createOrderHistory(Order order, User barista, User baker) {
+	private List<HistoryItem> createOrderHistory(Random random, Order order, User barista, User baker) {
 		ArrayList<HistoryItem> history = new ArrayList<>();
 		HistoryItem item = new HistoryItem(barista, "Order placed");
 		item.setNewState(OrderState.NEW);
@@ -215,6 +342,45 @@ public class DataGenerator implements HasLogger {
 		return history;
 	}
 
+	/**
+	 * Adds comments after the order was placed, usually none or a few, but a
+	 * long discussion for one order in a hundred.
+	 */
+	private void addComments(Random random, List<HistoryItem> history, User barista, LocalDateTime due) {
+		int count = 0;
+		if (random.nextInt(100) == 0) {
+			count = 20 + random.nextInt(80);
+		} else {
+			while (random.nextDouble() < 0.4) {
+				count++;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+
+		LocalDateTime placed = history.get(0).getTimestamp();
+		LocalDateTime until = history.size() > 1 ? history.get(1).getTimestamp() : due;
+		long step = Math.max(1, ChronoUnit.MINUTES.between(placed, until) / (count + 1));
+		List<HistoryItem> comments = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			HistoryItem comment = new HistoryItem(barista, getRandom(random, COMMENT));
+			comment.setNewState(OrderState.NEW);
+			comment.setTimestamp(placed.plusMinutes(step * i));
+			comments.add(comment);
+		}
+		history.addAll(1, comments);
+	}
+
+	/**
+	 * Returns an index from 0 to <code>size - 1</code>, the probability of
+	 * index <code>k</code> being roughly proportional to
+	 * <code>1 / (k + 1)</code>.
+	 */
+	private static int getSkewedIndex(Random random, int size) {
+		return (int) Math.min(size - 1, Math.floor(Math.pow(size + 1, random.nextDouble())) - 1);
+	}
+
 	private boolean containsProduct(List<OrderItem> items, Product product) {
 		for (OrderItem item : items) {
 			if (item.getProduct() == product) {
@@ -224,13 +390,13 @@ public class DataGenerator implements HasLogger {
 		return false;
 	}
 
-	private LocalTime getRandomDueTime() {
+	private LocalTime getRandomDueTime(Random random) {
 		int time = 8 + 4 * random.nextInt(3);
 
 		return LocalTime.of(time, 0);
 	}
 
-	private OrderState getRandomState(LocalDate due) {
+	private OrderState getRandomState(Random random, LocalDate due) {
 		LocalDate today = LocalDate.now();
 		LocalDate tomorrow = today.plusDays(1);
 		LocalDate twoDays = today.plusDays(2);
@@ -270,15 +436,23 @@ public class DataGenerator implements HasLogger {
 		}
 	}
 
-	private <T> T getRandom(T[] array) {
+	private <T> T getRandom(Random random, T[] array) {
 		return array[random.nextInt(array.length)];
 	}
 
-	private Supplier<PickupLocation> createPickupLocations(PickupLocationRepository pickupLocationRepository) {
-		List<PickupLocation> pickupLocations = Arrays.asList(
+	private Function<Random, PickupLocation> createPickupLocations(PickupLocationRepository pickupLocationRepository,
+			int numberOfItems) {
+		List<PickupLocation> pickupLocations = new ArrayList<>(Arrays.asList(
 				pickupLocationRepository.save(createPickupLocation("Store")),
-				pickupLocationRepository.save(createPickupLocation("Bakery")));
-		return () -> pickupLocations.get(random.nextInt(pickupLocations.size()));
+				pickupLocationRepository.save(createPickupLocation("Bakery"))));
+		for (int i = pickupLocations.size() + 1; i <= numberOfItems; i++) {
+			String name = getRandom(random, LOCATION_TYPE) + " " + i;
+			pickupLocations.add(pickupLocationRepository.save(createPickupLocation(name)));
+		}
+		if (profile.isSkewed()) {
+			return random -> pickupLocations.get(getSkewedIndex(random, pickupLocations.size()));
+		}
+		return random -> pickupLocations.get(random.nextInt(pickupLocations.size()));
 	}
 
 	private PickupLocation createPickupLocation(String name) {
@@ -287,7 +461,7 @@ public class DataGenerator implements HasLogger {
 		return store;
 	}
 
-	private Supplier<Product> createProducts(ProductRepository productsRepo, int numberOfItems) {
+	private Function<Random, Product> createProducts(ProductRepository productsRepo, int numberOfItems) {
 		List<Product> products  = new ArrayList<>();
 		for (int i = 0; i < numberOfItems; i++) {
 			Product product = new Product();
@@ -296,7 +470,10 @@ public class DataGenerator implements HasLogger {
 			product.setPrice((int) (doublePrice * 100.0));
 			products.add(productsRepo.save(product));
 		}
-		return () -> {
+		if (profile.isSkewed()) {
+			return random -> products.get(getSkewedIndex(random, products.size()));
+		}
+		return random -> {
 			double cutoff = 2.5;
 			double g = random.nextGaussian();
 			g = Math.min(cutoff, g);
@@ -308,19 +485,33 @@ public class DataGenerator implements HasLogger {
 	}
 
 	private String getRandomProductName() {
-		String firstFilling = getRandom(FILLING);
+		String name = getRandomProductNameCandidate();
+		// The names are unique, the few combinations run out with large profiles
+		for (int attempt = 0; productNames.contains(name) && attempt < 10; attempt++) {
+			name = getRandomProductNameCandidate();
+		}
+		String unique = name;
+		for (int i = 2; productNames.contains(unique); i++) {
+			unique = name + " " + i;
+		}
+		productNames.add(unique);
+		return unique;
+	}
+
+	private String getRandomProductNameCandidate() {
+		String firstFilling = getRandom(random, FILLING);
 		String name;
 		if (random.nextBoolean()) {
 			String secondFilling;
 			do {
-				secondFilling = getRandom(FILLING);
+				secondFilling = getRandom(random, FILLING);
 			} while (secondFilling.equals(firstFilling));
 
 			name = firstFilling + " " + secondFilling;
 		} else {
 			name = firstFilling;
 		}
-		name += " " + getRandom(TYPE);
+		name += " " + getRandom(random, TYPE);
 
 		return name;
 	}
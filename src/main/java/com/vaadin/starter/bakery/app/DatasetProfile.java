@@ -0,0 +1,68 @@
+package com.vaadin.starter.bakery.app;
+
+/**
+ * Sizes of the data generated by {@link DataGenerator}, selected with the
+ * <code>bakery.data.profile</code> property, e.g.
+ * <code>bakery.data.profile=orders-1m</code>. All but {@link #DEMO} skew the
+ * generated orders towards popular products, pickup locations and customers,
+ * and give some orders long comment histories.
+ */
+public enum DatasetProfile {
+
+	/**
+	 * Two years of orders, up to about ten per day, for trying out the
+	 * application.
+	 */
+	DEMO(0, 2, 8, 2, 0),
+
+	ORDERS_100K(100_000, 2, 50, 20, 20_000),
+
+	ORDERS_1M(1_000_000, 3, 150, 100, 200_000),
+
+	ORDERS_10M(10_000_000, 5, 250, 500, 2_000_000);
+
+	private final int orders;
+	private final int years;
+	private final int products;
+	private final int pickupLocations;
+	private final int customers;
+
+	DatasetProfile(int orders, int years, int products, int pickupLocations, int customers) {
+		this.orders = orders;
+		this.years = years;
+		this.products = products;
+		this.pickupLocations = pickupLocations;
+		this.customers = customers;
+	}
+
+	/**
+	 * Returns the approximate number of orders, distributed over
+	 * {@link #getYears()} years.
+	 */
+	public int getOrders() {
+		return orders;
+	}
+
+	public int getYears() {
+		return years;
+	}
+
+	public int getProducts() {
+		return products;
+	}
+
+	public int getPickupLocations() {
+		return pickupLocations;
+	}
+
+	/**
+	 * Returns the number of distinct customers the orders are placed by.
+	 */
+	public int getCustomers() {
+		return customers;
+	}
+
+	public boolean isSkewed() {
+		return this != DEMO;
+	}
+}
@@ -0,0 +1,67 @@
+package com.vaadin.starter.bakery.app;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.data.entity.User;
+
+/**
+ * Hibernate second-level cache for the reference data read on nearly every
+ * request. Hibernate keeps the cached entities and query results up to date on
+ * writes, the time to live only bounds how long changes made directly in the
+ * database go unnoticed.
+ */
+@Configuration
+public class EntityCacheConfiguration {
+
+	private static final Class<?>[] CACHED_ENTITIES = { Product.class, PickupLocation.class, User.class };
+
+	@Bean(destroyMethod = "close")
+	public CacheManager entityCacheManager(@Value("${bakery.entity-cache.ttl:10m}") Duration ttl,
+			@Value("${bakery.entity-cache.max-size:1000}") long maxSize) {
+		CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		// The default cache manager is shared by all application contexts in
+		// the class loader, each one gets its own
+		CacheManager cacheManager = provider.getCacheManager(URI.create("bakery-entity-cache-" + UUID.randomUUID()),
+				provider.getDefaultClassLoader());
+		for (Class<?> entity : CACHED_ENTITIES) {
+			createCache(cacheManager, entity.getName(), ttl, maxSize);
+		}
+		createCache(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, ttl, maxSize);
+		// Must not expire before the query results relying on it
+		createCache(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, null, maxSize);
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+		return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+	}
+
+	private static void createCache(CacheManager cacheManager, String name, Duration ttl, long maxSize) {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setMaximumSize(OptionalLong.of(maxSize));
+		if (ttl != null) {
+			configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+		}
+		configuration.setStatisticsEnabled(true);
+		cacheManager.createCache(name, configuration);
+	}
+}
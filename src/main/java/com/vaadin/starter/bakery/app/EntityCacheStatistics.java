@@ -0,0 +1,71 @@
+package com.vaadin.starter.bakery.app;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hit and miss counts of the second-level cache, see
+ * {@link EntityCacheConfiguration}. Requires
+ * <code>hibernate.generate_statistics</code>.
+ */
+@Component
+public class EntityCacheStatistics implements HasLogger {
+
+	private final Statistics statistics;
+
+	@Autowired
+	public EntityCacheStatistics(EntityManagerFactory entityManagerFactory) {
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	public long getHitCount() {
+		return statistics.getSecondLevelCacheHitCount();
+	}
+
+	public long getMissCount() {
+		return statistics.getSecondLevelCacheMissCount();
+	}
+
+	public long getQueryHitCount() {
+		return statistics.getQueryCacheHitCount();
+	}
+
+	public long getQueryMissCount() {
+		return statistics.getQueryCacheMissCount();
+	}
+
+	public CacheRegionStatistics getRegionStatistics(Class<?> entity) {
+		return statistics.getDomainDataRegionStatistics(entity.getName());
+	}
+
+	public void clear() {
+		statistics.clear();
+	}
+
+	@EventListener(ContextClosedEvent.class)
+	public void logStatistics() {
+		if (!statistics.isStatisticsEnabled()) {
+			return;
+		}
+		for (String region : statistics.getSecondLevelCacheRegionNames()) {
+			if (RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(region)) {
+				continue;
+			}
+			CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+			if (regionStatistics != null) {
+				getLogger().info("Cache region {}: {} hits, {} misses, {} puts", region,
+						regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+						regionStatistics.getPutCount());
+			}
+		}
+		getLogger().info("Query cache: {} hits, {} misses", getQueryHitCount(), getQueryMissCount());
+	}
+}
@@ -0,0 +1,73 @@
+package com.vaadin.starter.bakery.app;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Logs how long the application took to start, and when the first UIDL
+ * response was sent, as milliseconds since the JVM was started. Used by
+ * startup_benchmark.sh to compare the startup with and without the AOT
+ * processing and the class data sharing archive of the fast-startup build
+ * profile.
+ * <p>
+ * The filter timing the first response is only registered when
+ * <code>bakery.startup-timer.enabled</code> is set. The registration is
+ * decided at runtime, so that the property also works with the AOT build.
+ */
+@Component
+public class StartupTimer extends OncePerRequestFilter implements HasLogger {
+
+	private final AtomicBoolean uidlResponded = new AtomicBoolean();
+
+	@Bean
+	public FilterRegistrationBean<StartupTimer> startupTimerRegistration(
+			@Value("${bakery.startup-timer.enabled:false}") boolean enabled) {
+		FilterRegistrationBean<StartupTimer> registration = new FilterRegistrationBean<>(this);
+		registration.setEnabled(enabled);
+		return registration;
+	}
+
+	@EventListener
+	public void applicationStarted(ApplicationStartedEvent event) {
+		getLogger().info("Startup timing: context refresh {} ms, ready at {} ms", event.getTimeTaken().toMillis(),
+				getUptime());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		filterChain.doFilter(request, response);
+		if (!uidlResponded.get() && isUidlRequest(request) && uidlResponded.compareAndSet(false, true)) {
+			getLogger().info("Startup timing: first UIDL response at {} ms", getUptime());
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return uidlResponded.get();
+	}
+
+	private static boolean isUidlRequest(HttpServletRequest request) {
+		// The initial UIDL of a UI is sent in response to the init request
+		String requestType = request.getParameter("v-r");
+		return "init".equals(requestType) || "uidl".equals(requestType);
+	}
+
+	private static long getUptime() {
+		return ManagementFactory.getRuntimeMXBean().getUptime();
+	}
+}
@@ -1,17 +1,15 @@
 package com.vaadin.starter.bakery.app.security;
 
-import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import org.springframework.context.annotation.Scope;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 
+import com.vaadin.flow.spring.annotation.VaadinSessionScope;
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
-import com.vaadin.starter.bakery.backend.data.entity.User;
-import com.vaadin.starter.bakery.backend.repositories.UserRepository;
+import com.vaadin.starter.bakery.backend.service.UserService;
 import com.vaadin.starter.bakery.ui.views.login.LoginView;
 
 /**
@@ -28,12 +26,10 @@ import com.vaadin.starter.bakery.ui.views.login.LoginView;
 public class SecurityConfiguration extends VaadinWebSecurity {
 
 	@Bean
-	@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
-	public CurrentUser currentUser(UserRepository userRepository) {
-		final String username = SecurityUtils.getUsername();
-		User user = username != null ? userRepository.findByEmailIgnoreCase(username) : null;
-		return () -> user;
-	}	
+	@VaadinSessionScope
+	public CurrentUser currentUser(UserService userService) {
+		return new SessionCurrentUser(userService);
+	}
 
 	/**
 	 * Require login to access internal pages and configure login form.
@@ -0,0 +1,38 @@
+package com.vaadin.starter.bakery.app.security;
+
+import com.vaadin.starter.bakery.backend.data.entity.User;
+import com.vaadin.starter.bakery.backend.service.UserService;
+
+/**
+ * The user logged in to a Vaadin session. The user is read on first use and
+ * again only after {@link UserService} has saved or deleted that user.
+ */
+public class SessionCurrentUser implements CurrentUser {
+
+	private final UserService userService;
+	private String username;
+	private User user;
+	private long loadedAtChange;
+
+	public SessionCurrentUser(UserService userService) {
+		this.userService = userService;
+	}
+
+	@Override
+	public synchronized User getUser() {
+		if (user == null) {
+			if (username == null) {
+				username = SecurityUtils.getUsername();
+			}
+			if (username != null) {
+				loadedAtChange = userService.getChangeCount();
+				user = userService.getRepository().findByEmailIgnoreCase(username);
+			}
+		} else if (userService.isChangedSince(user.getId(), loadedAtChange)) {
+			// By id, the email may have been changed
+			loadedAtChange = userService.getChangeCount();
+			user = userService.getRepository().findById(user.getId()).orElse(null);
+		}
+		return user;
+	}
+}
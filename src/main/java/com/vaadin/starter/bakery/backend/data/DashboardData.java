@@ -3,6 +3,7 @@ package com.vaadin.starter.bakery.backend.data;
 import java.util.LinkedHashMap;
 import java.util.List;
 
+import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
 import com.vaadin.starter.bakery.backend.data.entity.Product;
 
 /**
@@ -37,6 +38,12 @@ public class DashboardData {
      */
     private LinkedHashMap<Product, Integer> productDeliveries;
 
+    /**
+     * Map of pickup locations to the number of orders delivered there.
+     * Maintains insertion order.
+     */
+    private LinkedHashMap<PickupLocation, Integer> deliveriesPerPickupLocation;
+
     /**
      * Gets the overall delivery statistics.
      * @return DeliveryStats object
@@ -118,4 +125,20 @@ public class DashboardData {
         this.productDeliveries = productDeliveries;
     }
 
+    /**
+     * Gets the deliveries count per pickup location.
+     * @return Map of PickupLocation to delivery count
+     */
+    public LinkedHashMap<PickupLocation, Integer> getDeliveriesPerPickupLocation() {
+        return deliveriesPerPickupLocation;
+    }
+
+    /**
+     * Sets the deliveries count per pickup location.
+     * @param deliveriesPerPickupLocation Map of PickupLocation to delivery count
+     */
+    public void setDeliveriesPerPickupLocation(LinkedHashMap<PickupLocation, Integer> deliveriesPerPickupLocation) {
+        this.deliveriesPerPickupLocation = deliveriesPerPickupLocation;
+    }
+
 }
@@ -1,9 +1,14 @@
 package com.vaadin.starter.bakery.backend.data;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 /**
  * DeliveryStats is a simple data container class that holds statistics about deliveries and orders
  * for the bakery application. The statistics include counts for orders delivered today, orders due today,
- * orders due tomorrow, orders not available for delivery today, and new orders.
+ * orders due tomorrow, orders not available for delivery today, and new orders, as well as the
+ * times of the next deliveries and of the last order placed.
  *
  * This class provides getter and setter methods for each statistic field.
  */
@@ -24,6 +29,18 @@ public class DeliveryStats {
     /** Number of new orders */
     private int newOrders;
 
+    /** Due time of the next order ready for pickup today, or null */
+    private LocalTime nextReadyDueTimeToday;
+
+    /** Due date of the next order ready for pickup after today, or null */
+    private LocalDate nextReadyDueDateAfterToday;
+
+    /** Due time of the first order due tomorrow, or null */
+    private LocalTime firstDueTimeTomorrow;
+
+    /** Time the last order was placed, or null */
+    private LocalDateTime lastOrderCreatedAt;
+
     /**
      * Gets the number of orders delivered today.
      * @return the deliveredToday count
@@ -104,4 +121,68 @@ public class DeliveryStats {
         this.newOrders = newOrders;
     }
 
+    /**
+     * Gets the due time of the next order ready for pickup today.
+     * @return the due time, or null if there is none left today
+     */
+    public LocalTime getNextReadyDueTimeToday() {
+        return nextReadyDueTimeToday;
+    }
+
+    /**
+     * Sets the due time of the next order ready for pickup today.
+     * @param nextReadyDueTimeToday the due time to set
+     */
+    public void setNextReadyDueTimeToday(LocalTime nextReadyDueTimeToday) {
+        this.nextReadyDueTimeToday = nextReadyDueTimeToday;
+    }
+
+    /**
+     * Gets the due date of the next order ready for pickup after today.
+     * @return the due date, or null if there is none
+     */
+    public LocalDate getNextReadyDueDateAfterToday() {
+        return nextReadyDueDateAfterToday;
+    }
+
+    /**
+     * Sets the due date of the next order ready for pickup after today.
+     * @param nextReadyDueDateAfterToday the due date to set
+     */
+    public void setNextReadyDueDateAfterToday(LocalDate nextReadyDueDateAfterToday) {
+        this.nextReadyDueDateAfterToday = nextReadyDueDateAfterToday;
+    }
+
+    /**
+     * Gets the due time of the first order due tomorrow.
+     * @return the due time, or null if no orders are due tomorrow
+     */
+    public LocalTime getFirstDueTimeTomorrow() {
+        return firstDueTimeTomorrow;
+    }
+
+    /**
+     * Sets the due time of the first order due tomorrow.
+     * @param firstDueTimeTomorrow the due time to set
+     */
+    public void setFirstDueTimeTomorrow(LocalTime firstDueTimeTomorrow) {
+        this.firstDueTimeTomorrow = firstDueTimeTomorrow;
+    }
+
+    /**
+     * Gets the time the last order was placed.
+     * @return the creation time, or null if there are no orders
+     */
+    public LocalDateTime getLastOrderCreatedAt() {
+        return lastOrderCreatedAt;
+    }
+
+    /**
+     * Sets the time the last order was placed.
+     * @param lastOrderCreatedAt the creation time to set
+     */
+    public void setLastOrderCreatedAt(LocalDateTime lastOrderCreatedAt) {
+        this.lastOrderCreatedAt = lastOrderCreatedAt;
+    }
+
 }
@@ -0,0 +1,138 @@
+package com.vaadin.starter.bakery.backend.data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+
+/**
+ * Read-only copy of the order fields shown on an order card. Unlike the
+ * {@link Order} entity it is not tracked by the persistence context, and only
+ * holds the names of the customer, pickup location and products.
+ */
+public class OrderCardData implements Serializable {
+
+	/**
+	 * A product and its quantity on an order card.
+	 */
+	public static class Item implements Serializable {
+
+		private final String productName;
+		private final int quantity;
+
+		public Item(String productName, int quantity) {
+			this.productName = productName;
+			this.quantity = quantity;
+		}
+
+		public String getProductName() {
+			return productName;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Item that = (Item) o;
+			return quantity == that.quantity && Objects.equals(productName, that.productName);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(productName, quantity);
+		}
+	}
+
+	private final Long id;
+	private final int version;
+	private final LocalDate dueDate;
+	private final LocalTime dueTime;
+	private final OrderState state;
+	private final String customerName;
+	private final String pickupLocationName;
+	private final List<Item> items;
+
+	/**
+	 * Creates a card without items, used by the card queries.
+	 */
+	public OrderCardData(Long id, int version, LocalDate dueDate, LocalTime dueTime, OrderState state,
+			String customerName, String pickupLocationName) {
+		this(id, version, dueDate, dueTime, state, customerName, pickupLocationName, Collections.emptyList());
+	}
+
+	public OrderCardData(Long id, int version, LocalDate dueDate, LocalTime dueTime, OrderState state,
+			String customerName, String pickupLocationName, List<Item> items) {
+		this.id = id;
+		this.version = version;
+		this.dueDate = dueDate;
+		this.dueTime = dueTime;
+		this.state = state;
+		this.customerName = customerName;
+		this.pickupLocationName = pickupLocationName;
+		this.items = Collections.unmodifiableList(items);
+	}
+
+	/**
+	 * Copies the card fields of an order, e.g. to refresh a grid row after
+	 * saving the order.
+	 */
+	public static OrderCardData of(Order order) {
+		List<Item> items = order.getItems().stream()
+				.map(item -> new Item(item.getProduct().getName(), item.getQuantity())).collect(Collectors.toList());
+		return new OrderCardData(order.getId(), order.getVersion(), order.getDueDate(), order.getDueTime(),
+				order.getState(), order.getCustomer().getFullName(), order.getPickupLocation().getName(), items);
+	}
+
+	public OrderCardData withItems(List<Item> items) {
+		return new OrderCardData(id, version, dueDate, dueTime, state, customerName, pickupLocationName, items);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @return the version of the order when the card was read, changes with
+	 *         every save of the order
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public LocalDate getDueDate() {
+		return dueDate;
+	}
+
+	public LocalTime getDueTime() {
+		return dueTime;
+	}
+
+	public OrderState getState() {
+		return state;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public String getPickupLocationName() {
+		return pickupLocationName;
+	}
+
+	public List<Item> getItems() {
+		return items;
+	}
+}
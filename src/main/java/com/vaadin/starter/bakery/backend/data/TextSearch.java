@@ -0,0 +1,67 @@
+package com.vaadin.starter.bakery.backend.data;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization shared by the stored search keys and the search queries, so
+ * that "Élodie" is found by "elo" and "ELODIE" alike.
+ */
+public final class TextSearch {
+
+	/**
+	 * Length of the substrings indexed for substring search. Shorter queries
+	 * can not use the index.
+	 */
+	public static final int TRIGRAM_LENGTH = 3;
+
+	/**
+	 * Escape character for {@link #containsPattern(String)}, to be declared in
+	 * the query as <code>ESCAPE '!'</code>.
+	 */
+	public static final char LIKE_ESCAPE = '!';
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private TextSearch() {
+	}
+
+	/**
+	 * Lower-cases the text, strips accents and collapses whitespace.
+	 */
+	public static String normalize(String text) {
+		if (text == null) {
+			return null;
+		}
+		String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Returns the distinct substrings of length {@link #TRIGRAM_LENGTH} of an
+	 * already normalized text.
+	 */
+	public static Set<String> trigrams(String normalized) {
+		Set<String> trigrams = new LinkedHashSet<>();
+		if (normalized != null) {
+			for (int i = 0; i + TRIGRAM_LENGTH <= normalized.length(); i++) {
+				trigrams.add(normalized.substring(i, i + TRIGRAM_LENGTH));
+			}
+		}
+		return trigrams;
+	}
+
+	/**
+	 * Builds a LIKE pattern matching texts containing the given normalized text,
+	 * escaping wildcards with {@link #LIKE_ESCAPE}.
+	 */
+	public static String containsPattern(String normalized) {
+		String escape = String.valueOf(LIKE_ESCAPE);
+		return "%" + normalized.replace(escape, escape + escape).replace("%", escape + "%").replace("_", escape + "_")
+				+ "%";
+	}
+}
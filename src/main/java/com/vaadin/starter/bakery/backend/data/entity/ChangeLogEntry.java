@@ -0,0 +1,132 @@
+package com.vaadin.starter.bakery.backend.data.entity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+
+/**
+ * An entity saved or deleted by one of the servers sharing the database.
+ * <p>
+ * Unlike the {@link AbstractEntity} ids, which each server takes from the
+ * sequence in blocks, the ids are assigned by the database on insert, so that
+ * they follow the order in which the servers write the entries.
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(columnList = "writtenAt"))
+public class ChangeLogEntry {
+
+	public enum EntityType {
+		ORDER, PRODUCT, USER
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@NotNull
+	private String node;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	private EntityType entityType;
+
+	@NotNull
+	private Long entityId;
+
+	private boolean created;
+
+	private boolean deleted;
+
+	// The due date and state of a changed order before and after the change,
+	// so that the other servers can update their order counters
+	private LocalDate oldDueDate;
+
+	@Enumerated(EnumType.STRING)
+	private OrderState oldState;
+
+	private LocalDate newDueDate;
+
+	@Enumerated(EnumType.STRING)
+	private OrderState newState;
+
+	@NotNull
+	private Instant writtenAt;
+
+	ChangeLogEntry() {
+		// Empty constructor is needed by Spring Data / JPA
+	}
+
+	public ChangeLogEntry(String node, EntityType entityType, Long entityId, boolean created, boolean deleted,
+			Instant writtenAt) {
+		this.node = node;
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.created = created;
+		this.deleted = deleted;
+		this.writtenAt = writtenAt;
+	}
+
+	public ChangeLogEntry(String node, Long orderId, boolean created, boolean deleted, LocalDate oldDueDate,
+			OrderState oldState, LocalDate newDueDate, OrderState newState, Instant writtenAt) {
+		this(node, EntityType.ORDER, orderId, created, deleted, writtenAt);
+		this.oldDueDate = oldDueDate;
+		this.oldState = oldState;
+		this.newDueDate = newDueDate;
+		this.newState = newState;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public EntityType getEntityType() {
+		return entityType;
+	}
+
+	public Long getEntityId() {
+		return entityId;
+	}
+
+	public boolean isCreated() {
+		return created;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public LocalDate getOldDueDate() {
+		return oldDueDate;
+	}
+
+	public OrderState getOldState() {
+		return oldState;
+	}
+
+	public LocalDate getNewDueDate() {
+		return newDueDate;
+	}
+
+	public OrderState getNewState() {
+		return newState;
+	}
+
+	public Instant getWrittenAt() {
+		return writtenAt;
+	}
+}
@@ -1,10 +1,19 @@
 package com.vaadin.starter.bakery.backend.data.entity;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
+import com.vaadin.starter.bakery.backend.data.TextSearch;
 
 @Entity
 public class Customer extends AbstractEntity {
@@ -24,12 +33,26 @@ public class Customer extends AbstractEntity {
 	@Size(max = 255)
 	private String details;
 
+	// Normalized full name, see TextSearch
+	@Column(length = 255)
+	private String searchKey;
+
+	// Trigrams of the search key, maintained together with it
+	@ElementCollection
+	@CollectionTable(name = "customer_search_trigram", joinColumns = @JoinColumn(name = "customer_id"), indexes = @Index(name = "idx_customer_search_trigram", columnList = "trigram, customer_id"))
+	@Column(name = "trigram", length = TextSearch.TRIGRAM_LENGTH)
+	private Set<String> searchTrigrams = new HashSet<>();
+
 	public String getFullName() {
 		return fullName;
 	}
 
 	public void setFullName(String fullName) {
 		this.fullName = fullName;
+		this.searchKey = TextSearch.normalize(fullName);
+		Set<String> trigrams = TextSearch.trigrams(searchKey);
+		searchTrigrams.retainAll(trigrams);
+		searchTrigrams.addAll(trigrams);
 	}
 
 	public String getPhoneNumber() {
@@ -1,6 +1,7 @@
 package com.vaadin.starter.bakery.backend.data.entity;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -8,6 +9,7 @@ import java.util.List;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
@@ -19,6 +21,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.OrderColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -26,6 +29,7 @@ import jakarta.validation.constraints.NotNull;
 import org.hibernate.annotations.BatchSize;
 
 import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.service.OrderCounterListener;
 
 @Entity(name = "OrderInfo") // "Order" is a reserved word
 @NamedEntityGraphs({@NamedEntityGraph(name = Order.ENTITY_GRAPTH_BRIEF, attributeNodes = {
@@ -37,11 +41,14 @@ import com.vaadin.starter.bakery.backend.data.OrderState;
 		@NamedAttributeNode("items"),
 		@NamedAttributeNode("history")
 })})
-@Table(indexes = @Index(columnList = "dueDate"))
+@Table(indexes = {@Index(columnList = "dueDate"), @Index(columnList = "createdAt"),
+		@Index(name = Order.INDEX_STATE_DUE_DATE, columnList = "state, dueDate")})
+@EntityListeners(OrderCounterListener.class)
 public class Order extends AbstractEntity implements OrderSummary {
 
 	public static final String ENTITY_GRAPTH_BRIEF = "Order.brief";
 	public static final String ENTITY_GRAPTH_FULL = "Order.full";
+	public static final String INDEX_STATE_DUE_DATE = "idx_order_state_due_date";
 
 	@NotNull(message = "{bakery.due.date.required}")
 	private LocalDate dueDate;
@@ -73,10 +80,21 @@ public class Order extends AbstractEntity implements OrderSummary {
 	@JoinColumn
 	private List<HistoryItem> history;
 
+	// Same as the timestamp of the first history item, without loading the history
+	@NotNull
+	private LocalDateTime createdAt;
+
+	// Due date and state as last read from or written to the database
+	@Transient
+	private LocalDate storedDueDate;
+	@Transient
+	private OrderState storedState;
+
 	public Order(User createdBy) {
 		this.state = OrderState.NEW;
 		setCustomer(new Customer());
 		addHistoryItem(createdBy, "Order placed");
+		this.createdAt = history.get(0).getTimestamp();
 		this.items = new ArrayList<>();
 	}
 
@@ -146,6 +164,30 @@ public class Order extends AbstractEntity implements OrderSummary {
 		this.history = history;
 	}
 
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDate getStoredDueDate() {
+		return storedDueDate;
+	}
+
+	public OrderState getStoredState() {
+		return storedState;
+	}
+
+	/**
+	 * Remembers the current due date and state as the ones in the database.
+	 */
+	public void markStored() {
+		storedDueDate = dueDate;
+		storedState = state;
+	}
+
 	@Override
 	public OrderState getState() {
 		return state;
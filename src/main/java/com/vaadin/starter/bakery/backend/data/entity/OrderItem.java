@@ -1,7 +1,11 @@
 package com.vaadin.starter.bakery.backend.data.entity;
 
+import java.util.Objects;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -20,14 +24,29 @@ public class OrderItem extends AbstractEntity {
 	@Size(max = 255)
 	private String comment;
 
+	// The price of the product when it was added to the order, later price
+	// changes do not affect booked orders
+	private Integer unitPrice;
+
 	public Product getProduct() {
 		return product;
 	}
 
 	public void setProduct(Product product) {
+		if (product == null || this.product == null || !Objects.equals(product.getId(), this.product.getId())) {
+			unitPrice = product == null ? null : product.getPrice();
+		}
 		this.product = product;
 	}
 
+	/**
+	 * @return the price the product has been booked at, or its current price
+	 *         for items not saved yet
+	 */
+	public Integer getUnitPrice() {
+		return unitPrice != null || product == null ? unitPrice : product.getPrice();
+	}
+
 	public Integer getQuantity() {
 		return quantity;
 	}
@@ -45,6 +64,13 @@ public class OrderItem extends AbstractEntity {
 	}
 
 	public int getTotalPrice() {
-		return quantity == null || product == null ? 0 : quantity * product.getPrice();
+		Integer price = getUnitPrice();
+		return quantity == null || price == null ? 0 : quantity * price;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void bookUnitPrice() {
+		unitPrice = getUnitPrice();
 	}
 }
@@ -0,0 +1,93 @@
+package com.vaadin.starter.bakery.backend.data.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+
+/**
+ * Pre-aggregated order totals for one (due date, pickup location, product,
+ * state) combination.
+ * <p>
+ * Rows without a product hold the totals of whole orders: the number of orders
+ * and the quantity and revenue of all their items. Rows with a product hold the
+ * same totals restricted to the items of that product. Rows are only ever
+ * incremented, so several rows may exist for the same key and readers always
+ * sum them up.
+ */
+@Entity
+@Table(indexes = @Index(name = OrderRollup.INDEX_STATE_DUE_DATE, columnList = "state, dueDate"))
+public class OrderRollup extends AbstractEntity {
+
+	public static final String INDEX_STATE_DUE_DATE = "idx_order_rollup_state_due_date";
+
+	@NotNull
+	private LocalDate dueDate;
+
+	@NotNull
+	@ManyToOne
+	private PickupLocation pickupLocation;
+
+	@ManyToOne
+	private Product product;
+
+	@NotNull
+	private OrderState state;
+
+	private long orderCount;
+
+	private long quantity;
+
+	// Real revenue * 100 as in Product.price
+	private long revenue;
+
+	OrderRollup() {
+		// Empty constructor is needed by Spring Data / JPA
+	}
+
+	public OrderRollup(LocalDate dueDate, PickupLocation pickupLocation, Product product, OrderState state) {
+		this.dueDate = dueDate;
+		this.pickupLocation = pickupLocation;
+		this.product = product;
+		this.state = state;
+	}
+
+	public void add(long orderCount, long quantity, long revenue) {
+		this.orderCount += orderCount;
+		this.quantity += quantity;
+		this.revenue += revenue;
+	}
+
+	public LocalDate getDueDate() {
+		return dueDate;
+	}
+
+	public PickupLocation getPickupLocation() {
+		return pickupLocation;
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+	public OrderState getState() {
+		return state;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public long getQuantity() {
+		return quantity;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+}
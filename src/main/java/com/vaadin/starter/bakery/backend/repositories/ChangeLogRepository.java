@@ -0,0 +1,23 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.vaadin.starter.bakery.backend.data.entity.ChangeLogEntry;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+	List<ChangeLogEntry> findByIdGreaterThanOrderById(long id, Limit limit);
+
+	@Query("SELECT coalesce(max(e.id), 0) FROM ChangeLogEntry e")
+	long findLastId();
+
+	@Modifying
+	@Query("DELETE FROM ChangeLogEntry e WHERE e.writtenAt < ?1")
+	int deleteWrittenBefore(Instant time);
+}
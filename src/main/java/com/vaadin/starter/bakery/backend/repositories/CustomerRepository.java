@@ -1,8 +1,13 @@
 package com.vaadin.starter.bakery.backend.repositories;
 
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.vaadin.starter.bakery.backend.data.entity.Customer;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+	List<Customer> findBySearchKeyIsNull(Limit limit);
 }
@@ -1,31 +1,98 @@
 package com.vaadin.starter.bakery.backend.repositories;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 import com.vaadin.starter.bakery.backend.data.OrderState;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
-	Page<Order> findByDueDateAfter(LocalDate filterDate, Pageable pageable);
+	// Ids of the customers whose search key contains all of the trigrams ?1, ?2 being their number
+	String CUSTOMERS_WITH_TRIGRAMS = "SELECT c.id FROM Customer c JOIN c.searchTrigrams t WHERE t IN ?1 GROUP BY c.id HAVING count(DISTINCT t) = ?2";
 
-	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
-	Page<Order> findByCustomerFullNameContainingIgnoreCase(String searchQuery, Pageable pageable);
+	// The trigrams only narrow down the candidates, the LIKE pattern ?3 verifies their order
+	String CUSTOMER_NAME_MATCHES = "o.customer.id IN (" + CUSTOMERS_WITH_TRIGRAMS
+			+ ") AND o.customer.searchKey LIKE ?3 ESCAPE '!'";
 
-	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
-	Page<Order> findByCustomerFullNameContainingIgnoreCaseAndDueDateAfter(String searchQuery, LocalDate dueDate, Pageable pageable);
+	// The order card columns, the items are fetched separately for a page of cards
+	String CARD_DATA = "SELECT new com.vaadin.starter.bakery.backend.data.OrderCardData(o.id, o.version, o.dueDate, o.dueTime, o.state, c.fullName, l.name) FROM OrderInfo o JOIN o.customer c JOIN o.pickupLocation l";
+
+	// The rows following the row ?1, ?2, ?3 in the dueDate, dueTime, id order
+	String AFTER_CARD = "(o.dueDate > ?1 OR o.dueDate = ?1 AND (o.dueTime > ?2 OR o.dueTime = ?2 AND o.id > ?3))";
+
+	@Query(CARD_DATA)
+	Slice<OrderCardData> findCardsBy(Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE o.id IN ?1")
+	List<OrderCardData> findCardsByIdIn(Collection<Long> ids);
+
+	@Query("SELECT o.version FROM OrderInfo o WHERE o.id = ?1")
+	Optional<Integer> findVersionById(Long id);
+
+	@Query(CARD_DATA + " WHERE o.dueDate > ?1")
+	Slice<OrderCardData> findCardsByDueDateAfter(LocalDate filterDate, Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE " + CUSTOMER_NAME_MATCHES)
+	Slice<OrderCardData> findCardsByCustomerSearchTrigrams(Collection<String> trigrams, long trigramCount,
+			String searchKeyPattern, Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE " + CUSTOMER_NAME_MATCHES + " AND o.dueDate > ?4")
+	Slice<OrderCardData> findCardsByCustomerSearchTrigramsAndDueDateAfter(Collection<String> trigrams,
+			long trigramCount, String searchKeyPattern, LocalDate dueDate, Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE c.searchKey LIKE ?1 ESCAPE '!'")
+	Slice<OrderCardData> findCardsByCustomerSearchKeyLike(String searchKeyPattern, Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE c.searchKey LIKE ?1 ESCAPE '!' AND o.dueDate > ?2")
+	Slice<OrderCardData> findCardsByCustomerSearchKeyLikeAndDueDateAfter(String searchKeyPattern, LocalDate dueDate,
+			Pageable pageable);
+
+	@Query(CARD_DATA + " WHERE " + AFTER_CARD + " ORDER BY o.dueDate, o.dueTime, o.id")
+	List<OrderCardData> findCardsAfter(LocalDate dueDate, LocalTime dueTime, Long id, Limit limit);
+
+	@Query(CARD_DATA + " WHERE " + AFTER_CARD + " AND o.dueDate > ?4 ORDER BY o.dueDate, o.dueTime, o.id")
+	List<OrderCardData> findCardsAfterAndDueDateAfter(LocalDate dueDate, LocalTime dueTime, Long id,
+			LocalDate filterDate, Limit limit);
+
+	// Ids of the orders due on or after a day, in the dueDate, dueTime, id order of the cards
+	String IDS_FROM = "SELECT o.id FROM OrderInfo o JOIN o.customer c WHERE ";
+
+	String IDS_FROM_ORDER = " ORDER BY o.dueDate, o.dueTime, o.id";
+
+	@Query(IDS_FROM + "o.dueDate >= ?1" + IDS_FROM_ORDER)
+	List<Long> findIdsFrom(LocalDate dueDate, Limit limit);
+
+	@Query(IDS_FROM + CUSTOMER_NAME_MATCHES + " AND o.dueDate >= ?4" + IDS_FROM_ORDER)
+	List<Long> findIdsByCustomerSearchTrigramsFrom(Collection<String> trigrams, long trigramCount,
+			String searchKeyPattern, LocalDate dueDate, Limit limit);
+
+	@Query(IDS_FROM + "c.searchKey LIKE ?1 ESCAPE '!' AND o.dueDate >= ?2" + IDS_FROM_ORDER)
+	List<Long> findIdsByCustomerSearchKeyLikeFrom(String searchKeyPattern, LocalDate dueDate, Limit limit);
+
+	// Rows of order id, product name and quantity, in the order of the items
+	@Query("SELECT o.id, p.name, oi.quantity FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.id IN ?1 ORDER BY o.id, index(oi)")
+	List<Object[]> findCardItems(Collection<Long> orderIds);
 
 	@Override
 	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
@@ -35,35 +102,58 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
 	Page<Order> findAll(Pageable pageable);
 
-	@EntityGraph(value = Order.ENTITY_GRAPTH_BRIEF, type = EntityGraphType.LOAD)
-	List<OrderSummary> findByDueDateGreaterThanEqual(LocalDate dueDate);
-
 	@Override
 	@EntityGraph(value = Order.ENTITY_GRAPTH_FULL, type = EntityGraphType.LOAD)
 	Optional<Order> findById(Long id);
 
 	long countByDueDateAfter(LocalDate dueDate);
 
-	long countByCustomerFullNameContainingIgnoreCase(String searchQuery);
+	@Query("SELECT count(o) FROM OrderInfo o WHERE " + CUSTOMER_NAME_MATCHES)
+	long countByCustomerSearchTrigrams(Collection<String> trigrams, long trigramCount, String searchKeyPattern);
+
+	@Query("SELECT count(o) FROM OrderInfo o WHERE " + CUSTOMER_NAME_MATCHES + " AND o.dueDate > ?4")
+	long countByCustomerSearchTrigramsAndDueDateAfter(Collection<String> trigrams, long trigramCount,
+			String searchKeyPattern, LocalDate dueDate);
+
+	long countByCustomerSearchKeyContaining(String normalizedQuery);
+
+	long countByCustomerSearchKeyContainingAndDueDateAfter(String normalizedQuery, LocalDate dueDate);
+
+	@Query("SELECT min(o.dueTime) FROM OrderInfo o WHERE o.dueDate = ?1")
+	LocalTime findFirstDueTime(LocalDate dueDate);
+
+	@Query("SELECT min(o.dueTime) FROM OrderInfo o WHERE o.state = ?1 AND o.dueDate = ?2 AND o.dueTime > ?3")
+	LocalTime findFirstDueTimeByStateAfter(OrderState state, LocalDate dueDate, LocalTime dueTime);
+
+	@Query("SELECT min(o.dueDate) FROM OrderInfo o WHERE o.state = ?1 AND o.dueDate > ?2")
+	LocalDate findFirstDueDateByStateAfter(OrderState state, LocalDate dueDate);
 
-	long countByCustomerFullNameContainingIgnoreCaseAndDueDateAfter(String searchQuery, LocalDate dueDate);
+	@Query("SELECT max(o.createdAt) FROM OrderInfo o")
+	LocalDateTime findLastCreatedAt();
 
-	long countByDueDate(LocalDate dueDate);
+	// Revenue at the booked unit prices, items saved before they were stored are priced by fillMissingUnitPrices
+	@Query("SELECT o.dueDate, o.pickupLocation.id, o.state, p.id, oi.quantity, oi.quantity*coalesce(oi.unitPrice, p.price) FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.id=?1")
+	List<Object[]> findRollupContribution(Long id);
 
-	long countByDueDateAndStateIn(LocalDate dueDate, Collection<OrderState> state);
+	@Query("SELECT o.dueDate, o.pickupLocation.id, o.state, p.id, count(DISTINCT o.id), sum(oi.quantity), sum(oi.quantity*coalesce(oi.unitPrice, p.price)) FROM OrderInfo o JOIN o.items oi JOIN oi.product p GROUP BY o.dueDate, o.pickupLocation.id, o.state, p.id")
+	List<Object[]> sumPerDayPickupLocationStateAndProduct();
 
-	long countByState(OrderState state);
+	@Query("SELECT o.dueDate, o.pickupLocation.id, o.state, count(*) FROM OrderInfo o GROUP BY o.dueDate, o.pickupLocation.id, o.state")
+	List<Object[]> countPerDayPickupLocationAndState();
 
-	@Query("SELECT month(dueDate) as month, count(*) as deliveries FROM OrderInfo o where o.state=?1 and year(dueDate)=?2 group by month(dueDate)")
-	List<Object[]> countPerMonth(OrderState orderState, int year);
+	@Modifying
+	@Query("UPDATE OrderItem i SET i.unitPrice = (SELECT p.price FROM Product p WHERE p.id = i.product.id) WHERE i.unitPrice IS NULL")
+	int fillMissingUnitPrices();
 
-	@Query("SELECT year(o.dueDate) as y, month(o.dueDate) as m, sum(oi.quantity*p.price) as deliveries FROM OrderInfo o JOIN o.items oi JOIN oi.product p where o.state=?1 and year(o.dueDate)<=?2 AND year(o.dueDate)>=(?2-3) group by year(o.dueDate), month(o.dueDate) order by y desc, month(o.dueDate)")
-	List<Object[]> sumPerMonthLastThreeYears(OrderState orderState, int year);
+	@Query("SELECT o.dueDate, o.state, count(*) FROM OrderInfo o GROUP BY o.dueDate, o.state")
+	List<Object[]> countPerDayAndState();
 
-	@Query("SELECT day(dueDate) as day, count(*) as deliveries FROM OrderInfo o where o.state=?1 and year(dueDate)=?2 and month(dueDate)=?3 group by day(dueDate)")
-	List<Object[]> countPerDay(OrderState orderState, int year, int month);
+	// Rows of order id, due date, state, pickup location id, product id, quantity and price, one per item
+	@Query("SELECT o.id, o.dueDate, o.state, o.pickupLocation.id, p.id, oi.quantity, coalesce(oi.unitPrice, p.price) FROM OrderInfo o JOIN o.items oi JOIN oi.product p ORDER BY o.id, index(oi)")
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+	Stream<Object[]> streamAnalyticsRows();
 
-	@Query("SELECT sum(oi.quantity), p FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.state=?1 AND year(o.dueDate)=?2 AND month(o.dueDate)=?3 GROUP BY p.id ORDER BY p.id")
-	List<Object[]> countPerProduct(OrderState orderState, int year, int month);
+	@Query("SELECT o.id, o.dueDate, o.state, o.pickupLocation.id, p.id, oi.quantity, coalesce(oi.unitPrice, p.price) FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.id = ?1 ORDER BY index(oi)")
+	List<Object[]> findAnalyticsRows(Long id);
 
 }
@@ -0,0 +1,37 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.OrderRollup;
+
+public interface OrderRollupRepository extends JpaRepository<OrderRollup, Long> {
+
+	@Modifying
+	@Query("UPDATE OrderRollup r SET r.orderCount = r.orderCount + ?4, r.quantity = r.quantity + ?5, r.revenue = r.revenue + ?6 WHERE r.dueDate = ?1 AND r.pickupLocation.id = ?2 AND r.state = ?3 AND r.product IS NULL")
+	int addToOrderTotals(LocalDate dueDate, Long pickupLocationId, OrderState state, long orderCount, long quantity,
+			long revenue);
+
+	@Modifying
+	@Query("UPDATE OrderRollup r SET r.orderCount = r.orderCount + ?5, r.quantity = r.quantity + ?6, r.revenue = r.revenue + ?7 WHERE r.dueDate = ?1 AND r.pickupLocation.id = ?2 AND r.state = ?3 AND r.product.id = ?4")
+	int addToProductTotals(LocalDate dueDate, Long pickupLocationId, OrderState state, Long productId,
+			long orderCount, long quantity, long revenue);
+
+	@Query("SELECT r.dueDate, sum(r.orderCount) FROM OrderRollup r WHERE r.product IS NULL AND r.state = ?1 AND r.dueDate >= ?2 AND r.dueDate < ?3 GROUP BY r.dueDate")
+	List<Object[]> countPerDay(OrderState orderState, LocalDate from, LocalDate to);
+
+	@Query("SELECT year(r.dueDate), month(r.dueDate), sum(r.orderCount), sum(r.revenue) FROM OrderRollup r WHERE r.product IS NULL AND r.state = ?1 AND r.dueDate >= ?2 AND r.dueDate < ?3 GROUP BY year(r.dueDate), month(r.dueDate)")
+	List<Object[]> sumPerMonth(OrderState orderState, LocalDate from, LocalDate to);
+
+	@Query("SELECT sum(r.quantity), p FROM OrderRollup r JOIN r.product p WHERE r.state = ?1 AND r.dueDate >= ?2 AND r.dueDate < ?3 GROUP BY p.id ORDER BY p.id")
+	List<Object[]> sumQuantityPerProduct(OrderState orderState, LocalDate from, LocalDate to);
+
+	@Query("SELECT sum(r.orderCount), l FROM OrderRollup r JOIN r.pickupLocation l WHERE r.product IS NULL AND r.state = ?1 AND r.dueDate >= ?2 AND r.dueDate < ?3 GROUP BY l.id ORDER BY l.id")
+	List<Object[]> countPerPickupLocation(OrderState orderState, LocalDate from, LocalDate to);
+
+}
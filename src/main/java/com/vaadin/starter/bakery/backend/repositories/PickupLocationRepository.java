@@ -1,14 +1,22 @@
 package com.vaadin.starter.bakery.backend.repositories;
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
 
 public interface PickupLocationRepository extends JpaRepository<PickupLocation, Long> {
 
-	Page<PickupLocation> findByNameLikeIgnoreCase(String nameFilter, Pageable pageable);
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+	Slice<PickupLocation> findBy(Pageable pageable);
+
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+	Slice<PickupLocation> findByNameLikeIgnoreCase(String nameFilter, Pageable pageable);
 
 	int countByNameLikeIgnoreCase(String nameFilter);
 }
@@ -1,16 +1,22 @@
 package com.vaadin.starter.bakery.backend.repositories;
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.vaadin.starter.bakery.backend.data.entity.Product;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-	Page<Product> findBy(Pageable page);
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+	Slice<Product> findBy(Pageable page);
 
-	Page<Product> findByNameLikeIgnoreCase(String name, Pageable page);
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+	Slice<Product> findByNameLikeIgnoreCase(String name, Pageable page);
 
 	int countByNameLikeIgnoreCase(String name);
 
@@ -1,18 +1,23 @@
 package com.vaadin.starter.bakery.backend.repositories;
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.vaadin.starter.bakery.backend.data.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+	@QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
 	User findByEmailIgnoreCase(String email);
 
-	Page<User> findBy(Pageable pageable);
+	Slice<User> findBy(Pageable pageable);
 
-	Page<User> findByEmailLikeIgnoreCaseOrFirstNameLikeIgnoreCaseOrLastNameLikeIgnoreCaseOrRoleLikeIgnoreCase(
+	Slice<User> findByEmailLikeIgnoreCaseOrFirstNameLikeIgnoreCaseOrLastNameLikeIgnoreCaseOrRoleLikeIgnoreCase(
 			String emailLike, String firstNameLike, String lastNameLike, String roleLike, Pageable pageable);
 
 	long countByEmailLikeIgnoreCaseOrFirstNameLikeIgnoreCaseOrLastNameLikeIgnoreCaseOrRoleLikeIgnoreCase(
@@ -0,0 +1,249 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
+import com.vaadin.starter.bakery.backend.data.entity.ChangeLogEntry;
+import com.vaadin.starter.bakery.backend.data.entity.ChangeLogEntry.EntityType;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.data.entity.User;
+import com.vaadin.starter.bakery.backend.repositories.ChangeLogRepository;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent.Slot;
+
+/**
+ * Passes the order, product and user changes between the servers sharing the
+ * database, so that each server keeps its caches and open views up to date
+ * with the writes of the others.
+ * <p>
+ * The changes published by the services are appended to the
+ * <code>change_log</code> table, in the writing transaction when there is one.
+ * Every <code>bakery.change-log.poll</code> each server reads the entries
+ * appended since its previous poll, evicts what it has cached of the entities
+ * changed by other servers, moves the changed orders in its
+ * {@link OrderCounters} and republishes the changes as remote events.
+ * <p>
+ * Entries are read in id order. An id may show up after higher ones, when its
+ * transaction commits later, so ids missing below the highest one read are
+ * read again until <code>bakery.change-log.gap-timeout</code> has passed. Ids
+ * of rolled back transactions stay missing.
+ * <p>
+ * Disabled unless <code>bakery.change-log.enabled</code> is set, a single
+ * server needs none of it.
+ */
+@Service
+public class ChangeLog implements HasLogger {
+
+	private final ChangeLogRepository changeLogRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final CacheManager cacheManager;
+	private final EntityManagerFactory entityManagerFactory;
+	private final OrderCounters orderCounters;
+
+	private final boolean enabled;
+	private final String node;
+	private final long gapTimeoutNanos;
+	private final Duration retention;
+	private final int batchSize;
+
+	// Ids up to the position have been read or given up, the seen ones above it have been read
+	private long position = -1;
+	private final NavigableSet<Long> seen = new TreeSet<>();
+	private long gapSince;
+
+	private long polls;
+	private long pollNanos;
+	private long applied;
+	private long latencyMillis;
+	private long maxLatencyMillis;
+
+	@Autowired
+	public ChangeLog(ChangeLogRepository changeLogRepository, ApplicationEventPublisher eventPublisher,
+			CacheManager cacheManager, EntityManagerFactory entityManagerFactory, OrderCounters orderCounters,
+			@Value("${bakery.change-log.enabled:false}") boolean enabled,
+			@Value("${bakery.change-log.node:}") String node,
+			@Value("${bakery.change-log.gap-timeout:10s}") Duration gapTimeout,
+			@Value("${bakery.change-log.retention:1h}") Duration retention,
+			@Value("${bakery.change-log.batch-size:500}") int batchSize) {
+		this.changeLogRepository = changeLogRepository;
+		this.eventPublisher = eventPublisher;
+		this.cacheManager = cacheManager;
+		this.entityManagerFactory = entityManagerFactory;
+		this.orderCounters = orderCounters;
+		this.enabled = enabled;
+		this.node = node.isEmpty() ? UUID.randomUUID().toString() : node;
+		this.gapTimeoutNanos = gapTimeout.toNanos();
+		this.retention = retention;
+		this.batchSize = batchSize;
+	}
+
+	@EventListener
+	public void orderChanged(OrderChangedEvent event) {
+		if (enabled && !event.isRemote()) {
+			Slot before = event.getBefore();
+			Slot after = event.getAfter();
+			changeLogRepository.save(new ChangeLogEntry(node, event.getOrderId(), event.isCreated(),
+					event.isDeleted(), before == null ? null : before.dueDate(), before == null ? null : before.state(),
+					after == null ? null : after.dueDate(), after == null ? null : after.state(), Instant.now()));
+		}
+	}
+
+	@EventListener
+	public void entityChanged(EntityChangedEvent event) {
+		if (!enabled || event.isRemote()) {
+			return;
+		}
+		if (event.getType() == Product.class) {
+			append(EntityType.PRODUCT, event.getId(), event.isCreated(), event.isDeleted());
+		} else if (event.getType() == User.class) {
+			append(EntityType.USER, event.getId(), event.isCreated(), event.isDeleted());
+		}
+	}
+
+	private void append(EntityType type, Long id, boolean created, boolean deleted) {
+		changeLogRepository.save(new ChangeLogEntry(node, type, id, created, deleted, Instant.now()));
+	}
+
+	/**
+	 * Applies the changes logged by the other servers since the previous poll.
+	 * The first poll only takes the current position in the log.
+	 */
+	@Scheduled(initialDelayString = "${bakery.change-log.poll:1s}", fixedDelayString = "${bakery.change-log.poll:1s}")
+	public synchronized void poll() {
+		if (!enabled) {
+			return;
+		}
+		long start = System.nanoTime();
+		if (position < 0) {
+			position = changeLogRepository.findLastId();
+			return;
+		}
+		for (ChangeLogEntry entry : changeLogRepository.findByIdGreaterThanOrderById(position, Limit.of(batchSize))) {
+			if (!seen.add(entry.getId()) || node.equals(entry.getNode())) {
+				continue;
+			}
+			apply(entry);
+		}
+		advance(start);
+		polls++;
+		pollNanos += System.nanoTime() - start;
+	}
+
+	private void apply(ChangeLogEntry entry) {
+		Long id = entry.getEntityId();
+		switch (entry.getEntityType()) {
+		case ORDER:
+			evictCounts(OrderService.class);
+			// Outside of a transaction, the counters are changed right away
+			orderCounters.add(entry.getOldDueDate(), entry.getOldState(), -1);
+			orderCounters.add(entry.getNewDueDate(), entry.getNewState(), 1);
+			eventPublisher.publishEvent(new OrderChangedEvent(id, entry.isCreated(), entry.isDeleted(), true,
+					slot(entry.getOldDueDate(), entry.getOldState()), slot(entry.getNewDueDate(), entry.getNewState())));
+			break;
+		case PRODUCT:
+			evict(Product.class, id, ProductService.class);
+			eventPublisher.publishEvent(
+					new EntityChangedEvent(Product.class, id, entry.isCreated(), entry.isDeleted(), true));
+			break;
+		case USER:
+			evict(User.class, id, UserService.class);
+			eventPublisher.publishEvent(
+					new EntityChangedEvent(User.class, id, entry.isCreated(), entry.isDeleted(), true));
+			break;
+		}
+		// Includes the clock difference between the servers
+		long latency = Duration.between(entry.getWrittenAt(), Instant.now()).toMillis();
+		applied++;
+		latencyMillis += latency;
+		maxLatencyMillis = Math.max(maxLatencyMillis, latency);
+	}
+
+	private static Slot slot(LocalDate dueDate, OrderState state) {
+		return dueDate == null ? null : new Slot(dueDate, state);
+	}
+
+	private void evict(Class<? extends AbstractEntity> type, Long id, Class<?> service) {
+		entityManagerFactory.getCache().evict(type, id);
+		// The cached queries are only invalidated by writes made on this server
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+		evictCounts(service);
+	}
+
+	private void evictCounts(Class<?> service) {
+		Cache counts = cacheManager.getCache(CountCacheResolver.getCacheName(service));
+		if (counts != null) {
+			counts.clear();
+		}
+	}
+
+	private void advance(long now) {
+		while (!seen.isEmpty()) {
+			if (seen.first() == position + 1) {
+				position = seen.pollFirst();
+				gapSince = 0;
+				continue;
+			}
+			if (gapSince == 0) {
+				gapSince = now;
+			}
+			if (now - gapSince < gapTimeoutNanos) {
+				return;
+			}
+			getLogger().debug("Skipping change log entries {} to {}", position + 1, seen.first() - 1);
+			position = seen.first() - 1;
+		}
+	}
+
+	@Scheduled(initialDelayString = "${bakery.change-log.retention:1h}",
+			fixedDelayString = "${bakery.change-log.retention:1h}")
+	@Transactional
+	public void deleteOldEntries() {
+		if (enabled) {
+			changeLogRepository.deleteWrittenBefore(Instant.now().minus(retention));
+		}
+	}
+
+	public String getNode() {
+		return node;
+	}
+
+	public synchronized long getPollCount() {
+		return polls;
+	}
+
+	public synchronized long getAppliedCount() {
+		return applied;
+	}
+
+	@EventListener(ContextClosedEvent.class)
+	public synchronized void logStatistics() {
+		if (!enabled || polls == 0) {
+			return;
+		}
+		getLogger().info("Change log: {} polls taking {} µs on average, {} changes applied {} ms after being"
+				+ " written on average, {} ms at most", polls, pollNanos / polls / 1000, applied,
+				applied == 0 ? 0 : latencyMillis / applied, maxLatencyMillis);
+	}
+}
@@ -0,0 +1,41 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Resolves the cache holding the filtered row counts of the service a cache
+ * operation is invoked on, so that the generic {@link CrudService} methods can
+ * evict the counts of the right entity type.
+ */
+@Component(CrudService.COUNT_CACHE_RESOLVER)
+public class CountCacheResolver implements CacheResolver {
+
+	private final CacheManager cacheManager;
+
+	@Autowired
+	public CountCacheResolver(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+		return Collections.singleton(cacheManager.getCache(getCacheName(context.getTarget())));
+	}
+
+	public static String getCacheName(Object service) {
+		return getCacheName(ClassUtils.getUserClass(service));
+	}
+
+	public static String getCacheName(Class<?> serviceClass) {
+		return serviceClass.getSimpleName() + ".count";
+	}
+}
@@ -2,6 +2,7 @@ package com.vaadin.starter.bakery.backend.service;
 
 import jakarta.persistence.EntityNotFoundException;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
@@ -9,12 +10,20 @@ import com.vaadin.starter.bakery.backend.data.entity.User;
 
 public interface CrudService<T extends AbstractEntity> {
 
+	/**
+	 * Name of the {@link CountCacheResolver} bean, used by the cache annotations
+	 * on count queries and on the methods invalidating them.
+	 */
+	String COUNT_CACHE_RESOLVER = "countCacheResolver";
+
 	JpaRepository<T, Long> getRepository();
 
+	@CacheEvict(cacheResolver = COUNT_CACHE_RESOLVER, allEntries = true)
 	default T save(User currentUser, T entity) {
 		return getRepository().saveAndFlush(entity);
 	}
 
+	@CacheEvict(cacheResolver = COUNT_CACHE_RESOLVER, allEntries = true)
 	default void delete(User currentUser, T entity) {
 		if (entity == null) {
 			throw new EntityNotFoundException();
@@ -22,6 +31,7 @@ public interface CrudService<T extends AbstractEntity> {
 		getRepository().delete(entity);
 	}
 
+	@CacheEvict(cacheResolver = COUNT_CACHE_RESOLVER, allEntries = true)
 	default void delete(User currentUser, long id) {
 		delete(currentUser, load(id));
 	}
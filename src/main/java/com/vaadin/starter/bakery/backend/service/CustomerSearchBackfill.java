@@ -0,0 +1,57 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.TextSearch;
+import com.vaadin.starter.bakery.backend.data.entity.Customer;
+import com.vaadin.starter.bakery.backend.repositories.CustomerRepository;
+
+/**
+ * Fills the search keys and trigrams of the customers saved before they were
+ * stored, see {@link TextSearch}. Runs at startup, one transaction per batch.
+ */
+@Service
+public class CustomerSearchBackfill implements HasLogger {
+
+	private static final int BATCH_SIZE = 500;
+
+	private final CustomerRepository customerRepository;
+
+	private final TransactionTemplate transaction;
+
+	@Autowired
+	public CustomerSearchBackfill(CustomerRepository customerRepository,
+			PlatformTransactionManager transactionManager) {
+		this.customerRepository = customerRepository;
+		this.transaction = new TransactionTemplate(transactionManager);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void fillMissingSearchKeys() {
+		long start = System.currentTimeMillis();
+		int filled = 0;
+		int batch;
+		do {
+			batch = transaction.execute(status -> {
+				List<Customer> customers = customerRepository.findBySearchKeyIsNull(Limit.of(BATCH_SIZE));
+				// Setting the name again derives the search fields
+				customers.forEach(customer -> customer.setFullName(customer.getFullName()));
+				return customers.size();
+			});
+			filled += batch;
+		} while (batch == BATCH_SIZE);
+		if (filled > 0) {
+			getLogger().info("Filled the search keys of {} customers in {} ms", filled,
+					System.currentTimeMillis() - start);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
+
+/**
+ * Published by {@link ProductService} and {@link UserService} when an entity
+ * has been saved or deleted, see {@link OrderChangedEvent} for orders. Remote
+ * events are the changes made by other servers, republished by the
+ * {@link ChangeLog}.
+ */
+public class EntityChangedEvent {
+
+	private final Class<? extends AbstractEntity> type;
+	private final Long id;
+	private final boolean created;
+	private final boolean deleted;
+	private final boolean remote;
+
+	public EntityChangedEvent(Class<? extends AbstractEntity> type, Long id, boolean created, boolean deleted) {
+		this(type, id, created, deleted, false);
+	}
+
+	public EntityChangedEvent(Class<? extends AbstractEntity> type, Long id, boolean created, boolean deleted,
+			boolean remote) {
+		this.type = type;
+		this.id = id;
+		this.created = created;
+		this.deleted = deleted;
+		this.remote = remote;
+	}
+
+	public Class<? extends AbstractEntity> getType() {
+		return type;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public boolean isCreated() {
+		return created;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public boolean isRemote() {
+		return remote;
+	}
+}
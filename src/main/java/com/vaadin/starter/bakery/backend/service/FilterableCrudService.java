@@ -3,13 +3,15 @@ package com.vaadin.starter.bakery.backend.service;
 import java.util.Optional;
 
 import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface FilterableCrudService<T extends AbstractEntity> extends CrudService<T> {
 
-	Page<T> findAnyMatching(Optional<String> filter, Pageable pageable);
+	Slice<T> findAnyMatching(Optional<String> filter, Pageable pageable);
 
+	@Cacheable(cacheResolver = COUNT_CACHE_RESOLVER)
 	long countAnyMatching(Optional<String> filter);
 
 }
@@ -0,0 +1,511 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
+import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.repositories.PickupLocationRepository;
+import com.vaadin.starter.bakery.backend.repositories.ProductRepository;
+
+/**
+ * Answers aggregate queries over all orders from an in-memory copy stored in
+ * {@link OrderColumns}, without touching the database.
+ * <p>
+ * The copy is loaded at startup when <code>bakery.analytics.enabled</code> is
+ * set, and kept up to date from the {@link OrderChangedEvent}s of this server.
+ * Queries scan the columns in parallel chunks, each summing into its own array
+ * of totals. Revenue uses the unit prices booked on the order items.
+ */
+@Service
+public class OrderAnalytics implements HasLogger {
+
+	/**
+	 * What the totals are grouped by.
+	 */
+	public enum Dimension {
+		DAY, MONTH, PRODUCT, PICKUP_LOCATION, STATE
+	}
+
+	/**
+	 * What is summed up.
+	 */
+	public enum Measure {
+		/** Number of orders, or of order items when grouping by product */
+		ORDERS,
+		/** Quantity of the items */
+		QUANTITY,
+		/** Revenue in cents */
+		REVENUE
+	}
+
+	/**
+	 * Selects the orders to aggregate.
+	 *
+	 * @param states
+	 *            the states to include, all if <code>null</code>
+	 * @param from
+	 *            the first due date, inclusive, or <code>null</code>
+	 * @param to
+	 *            the last due date, exclusive, or <code>null</code>
+	 * @param pickupLocationId
+	 *            the pickup location, or <code>null</code> for all
+	 */
+	public record Filter(Set<OrderState> states, LocalDate from, LocalDate to, Long pickupLocationId) {
+
+		public static Filter of(OrderState state, LocalDate from, LocalDate to) {
+			return new Filter(EnumSet.of(state), from, to, null);
+		}
+	}
+
+	private static final int MIN_ROWS_PER_CHUNK = 64 * 1024;
+
+	private final OrderRepository orderRepository;
+	private final ProductRepository productRepository;
+	private final PickupLocationRepository pickupLocationRepository;
+	private final TransactionTemplate readOnlyTransaction;
+	private final boolean enabled;
+
+	private volatile Store store;
+	private Set<Long> changedWhileLoading;
+
+	@Autowired
+	public OrderAnalytics(OrderRepository orderRepository, ProductRepository productRepository,
+			PickupLocationRepository pickupLocationRepository, PlatformTransactionManager transactionManager,
+			@Value("${bakery.analytics.enabled:false}") boolean enabled) {
+		this.orderRepository = orderRepository;
+		this.productRepository = productRepository;
+		this.pickupLocationRepository = pickupLocationRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return whether queries can be answered, i.e. the orders have been loaded
+	 */
+	public boolean isLoaded() {
+		return store != null;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadIfEnabled() {
+		if (enabled) {
+			load();
+		}
+	}
+
+	/**
+	 * Loads all orders, replacing the ones loaded before. Orders changed
+	 * meanwhile are reloaded afterwards.
+	 */
+	public void load() {
+		long start = System.currentTimeMillis();
+		synchronized (this) {
+			changedWhileLoading = new HashSet<>();
+		}
+
+		Store loaded = readOnlyTransaction.execute(status -> loadStore());
+
+		synchronized (this) {
+			store = loaded;
+			for (Long id : changedWhileLoading) {
+				update(id);
+			}
+			changedWhileLoading = null;
+		}
+		getLogger().info("Loaded {} orders into the analytics in {} ms", loaded.columns.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	private Store loadStore() {
+		Store loaded = new Store();
+		// The streaming query needs the transaction to stay open
+		try (Stream<Object[]> rows = orderRepository.streamAnalyticsRows()) {
+			Long currentId = null;
+			Object[] current = null;
+			long cents = 0;
+			Iterator<Object[]> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				Object[] row = iterator.next();
+				// id, dueDate, state, pickupLocation, product, quantity, unit price
+				Long id = (Long) row[0];
+				if (!id.equals(currentId)) {
+					if (current != null) {
+						loaded.appendOrder(currentId, current, cents);
+					}
+					currentId = id;
+					current = row;
+					cents = 0;
+				}
+				cents += loaded.appendItem(row);
+			}
+			if (current != null) {
+				loaded.appendOrder(currentId, current, cents);
+			}
+		}
+		return loaded;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void orderChanged(OrderChangedEvent event) {
+		if (changedWhileLoading != null) {
+			changedWhileLoading.add(event.getOrderId());
+		} else if (store != null) {
+			update(event.getOrderId());
+		}
+	}
+
+	/**
+	 * Replaces the row of the order. The old row is deleted before the new
+	 * one is published, so a scan running meanwhile may miss the order but
+	 * never counts it twice.
+	 */
+	private void update(Long orderId) {
+		Store current = store;
+		List<Object[]> rows = orderRepository.findAnalyticsRows(orderId);
+		long cents = 0;
+		// Not scanned until the row owning them is appended
+		for (Object[] row : rows) {
+			cents += current.appendItem(row);
+		}
+		Integer oldRow = current.rows.remove(orderId);
+		if (oldRow != null) {
+			current.columns.delete(oldRow);
+		}
+		if (!rows.isEmpty()) {
+			current.appendOrder(orderId, rows.get(0), cents);
+		}
+		current.compactIfNeeded();
+	}
+
+	/**
+	 * @return one total per day from <code>filter.from()</code> to
+	 *         <code>filter.to()</code>
+	 */
+	public long[] perDay(Filter filter, Measure measure) {
+		return aggregate(filter, Dimension.DAY, measure);
+	}
+
+	/**
+	 * @return one total per month from the month of <code>filter.from()</code>
+	 *         to the month of the last day before <code>filter.to()</code>
+	 */
+	public long[] perMonth(Filter filter, Measure measure) {
+		return aggregate(filter, Dimension.MONTH, measure);
+	}
+
+	/**
+	 * @return the non-zero totals by product, ordered by product id
+	 */
+	public LinkedHashMap<Product, Long> perProduct(Filter filter, Measure measure) {
+		return toEntities(store().products, aggregate(filter, Dimension.PRODUCT, measure),
+				productRepository::findAllById);
+	}
+
+	/**
+	 * @return the non-zero totals by pickup location, ordered by id
+	 */
+	public LinkedHashMap<PickupLocation, Long> perPickupLocation(Filter filter, Measure measure) {
+		return toEntities(store().pickupLocations, aggregate(filter, Dimension.PICKUP_LOCATION, measure),
+				pickupLocationRepository::findAllById);
+	}
+
+	public Map<OrderState, Long> perState(Filter filter, Measure measure) {
+		long[] totals = aggregate(filter, Dimension.STATE, measure);
+		Map<OrderState, Long> perState = new EnumMap<>(OrderState.class);
+		for (OrderState state : OrderState.values()) {
+			perState.put(state, totals[state.ordinal()]);
+		}
+		return perState;
+	}
+
+	/**
+	 * Sums up the measure of the orders matching the filter.
+	 *
+	 * @return the totals indexed by group: days or months since the start of
+	 *         the filter, product or pickup location index, or state ordinal
+	 */
+	public long[] aggregate(Filter filter, Dimension dimension, Measure measure) {
+		Store current = store();
+		// Read before the columns, so that groups added meanwhile are skipped
+		int products = current.products.size();
+		int pickupLocations = current.pickupLocations.size();
+		OrderColumns columns = current.columns;
+
+		Scan scan = new Scan(filter, dimension, measure);
+		switch (dimension) {
+		case DAY, MONTH -> scan.groupDays();
+		case PRODUCT -> scan.groups = products;
+		case PICKUP_LOCATION -> scan.groups = pickupLocations;
+		case STATE -> scan.groups = OrderState.values().length;
+		}
+		if (filter.pickupLocationId() != null) {
+			Integer location = current.pickupLocations.indexOf(filter.pickupLocationId());
+			if (location == null) {
+				return new long[scan.groups];
+			}
+			scan.pickupLocation = location;
+		}
+
+		int size = columns.size();
+		int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / MIN_ROWS_PER_CHUNK));
+		if (chunks == 1) {
+			return scan.run(columns, 0, size);
+		}
+		int chunkSize = (size + chunks - 1) / chunks;
+		return IntStream.range(0, chunks).parallel()
+				.mapToObj(chunk -> scan.run(columns, chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize)))
+				.reduce(OrderAnalytics::add).get();
+	}
+
+	private Store store() {
+		Store current = store;
+		if (current == null) {
+			throw new IllegalStateException("Order analytics have not been loaded");
+		}
+		return current;
+	}
+
+	private static long[] add(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] += b[i];
+		}
+		return a;
+	}
+
+	private static <T extends AbstractEntity> LinkedHashMap<T, Long> toEntities(IdIndex index, long[] totals,
+			Function<List<Long>, List<T>> finder) {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < totals.length; i++) {
+			if (totals[i] != 0) {
+				ids.add(index.idOf(i));
+			}
+		}
+		Collections.sort(ids);
+		Map<Long, T> entities = new HashMap<>();
+		for (T entity : finder.apply(ids)) {
+			entities.put(entity.getId(), entity);
+		}
+		LinkedHashMap<T, Long> result = new LinkedHashMap<>();
+		for (Long id : ids) {
+			if (entities.containsKey(id)) {
+				result.put(entities.get(id), totals[index.indexOf(id)]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * One aggregate query. {@link #run(OrderColumns, int, int)} may be called
+	 * concurrently for different rows.
+	 */
+	private static final class Scan {
+
+		private final Dimension dimension;
+		private final Measure measure;
+		private final int stateMask;
+		private final int fromDay;
+		private final int toDay;
+		private int groups;
+		private int pickupLocation = -1;
+		// Group of each day since fromDay when grouping by month
+		private int[] monthOfDay;
+
+		Scan(Filter filter, Dimension dimension, Measure measure) {
+			this.dimension = dimension;
+			this.measure = measure;
+			int mask = 0;
+			for (OrderState state : filter.states() == null ? EnumSet.allOf(OrderState.class) : filter.states()) {
+				mask |= 1 << state.ordinal();
+			}
+			this.stateMask = mask;
+			this.fromDay = filter.from() == null ? Integer.MIN_VALUE : (int) filter.from().toEpochDay();
+			this.toDay = filter.to() == null ? Integer.MAX_VALUE : (int) filter.to().toEpochDay();
+		}
+
+		void groupDays() {
+			if (fromDay == Integer.MIN_VALUE || toDay == Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Grouping by " + dimension + " requires a date range");
+			}
+			if (dimension == Dimension.DAY) {
+				groups = Math.max(0, toDay - fromDay);
+				return;
+			}
+			LocalDate from = LocalDate.ofEpochDay(fromDay);
+			monthOfDay = new int[Math.max(0, toDay - fromDay)];
+			for (int day = 0; day < monthOfDay.length; day++) {
+				monthOfDay[day] = (int) ChronoUnit.MONTHS.between(from.withDayOfMonth(1),
+						from.plusDays(day).withDayOfMonth(1));
+			}
+			groups = monthOfDay.length == 0 ? 0 : monthOfDay[monthOfDay.length - 1] + 1;
+		}
+
+		long[] run(OrderColumns columns, int fromRow, int toRow) {
+			long[] totals = new long[groups];
+			byte[] state = columns.state;
+			int[] dueDay = columns.dueDay;
+			int[] location = columns.pickupLocation;
+			int[] itemStart = columns.itemStart;
+			int[] itemProduct = columns.itemProduct;
+			int[] itemQuantity = columns.itemQuantity;
+			long[] itemCents = columns.itemCents;
+
+			for (int row = fromRow; row < toRow; row++) {
+				int orderState = state[row];
+				if (orderState < 0 || (stateMask & (1 << orderState)) == 0) {
+					continue;
+				}
+				int day = dueDay[row];
+				if (day < fromDay || day >= toDay) {
+					continue;
+				}
+				if (pickupLocation >= 0 && location[row] != pickupLocation) {
+					continue;
+				}
+
+				if (dimension == Dimension.PRODUCT) {
+					for (int item = itemStart[row]; item < itemStart[row + 1]; item++) {
+						int product = itemProduct[item];
+						if (product < groups) {
+							totals[product] += switch (measure) {
+							case ORDERS -> 1;
+							case QUANTITY -> itemQuantity[item];
+							case REVENUE -> itemCents[item];
+							};
+						}
+					}
+					continue;
+				}
+
+				int group = switch (dimension) {
+				case DAY -> day - fromDay;
+				case MONTH -> monthOfDay[day - fromDay];
+				case PICKUP_LOCATION -> location[row];
+				default -> orderState;
+				};
+				if (group >= groups) {
+					continue;
+				}
+				if (measure == Measure.ORDERS) {
+					totals[group]++;
+				} else if (measure == Measure.REVENUE) {
+					totals[group] += columns.totalCents[row];
+				} else {
+					for (int item = itemStart[row]; item < itemStart[row + 1]; item++) {
+						totals[group] += itemQuantity[item];
+					}
+				}
+			}
+			return totals;
+		}
+	}
+
+	/**
+	 * Dense indexes for entity ids, so that they can be stored in and grouped
+	 * by int columns.
+	 */
+	private static final class IdIndex {
+
+		private final Map<Long, Integer> indexes = new ConcurrentHashMap<>();
+		private volatile long[] ids = new long[0];
+
+		Integer indexOf(Long id) {
+			return indexes.get(id);
+		}
+
+		int add(Long id) {
+			Integer index = indexes.get(id);
+			if (index == null) {
+				long[] grown = Arrays.copyOf(ids, ids.length + 1);
+				index = ids.length;
+				grown[index] = id;
+				ids = grown;
+				indexes.put(id, index);
+			}
+			return index;
+		}
+
+		long idOf(int index) {
+			return ids[index];
+		}
+
+		int size() {
+			return ids.length;
+		}
+	}
+
+	/**
+	 * The loaded orders. Only changed while holding the lock of the
+	 * {@link OrderAnalytics}.
+	 */
+	private static final class Store {
+
+		private volatile OrderColumns columns = new OrderColumns(1024, 4096);
+		private final Map<Long, Integer> rows = new HashMap<>();
+		private final IdIndex products = new IdIndex();
+		private final IdIndex pickupLocations = new IdIndex();
+
+		/**
+		 * @return the revenue of the item in cents
+		 */
+		long appendItem(Object[] row) {
+			// id, dueDate, state, pickupLocation, product, quantity, unit price
+			int product = products.add((Long) row[4]);
+			int quantity = ((Number) row[5]).intValue();
+			long cents = (long) quantity * ((Number) row[6]).intValue();
+			columns = columns.ensureCapacity(1, 1);
+			columns.appendItem(product, quantity, cents);
+			return cents;
+		}
+
+		void appendOrder(Long id, Object[] row, long cents) {
+			int day = (int) ((LocalDate) row[1]).toEpochDay();
+			byte state = (byte) ((OrderState) row[2]).ordinal();
+			int location = pickupLocations.add((Long) row[3]);
+			columns = columns.ensureCapacity(1, 0);
+			rows.put(id, columns.append(day, state, location, cents));
+		}
+
+		void compactIfNeeded() {
+			OrderColumns current = columns;
+			if (current.deleted() < 1024 || current.deleted() < current.size() / 4) {
+				return;
+			}
+			int[] newRows = new int[current.size()];
+			OrderColumns compacted = current.compact(newRows);
+			rows.replaceAll((id, row) -> newRows[row]);
+			columns = compacted;
+		}
+	}
+}
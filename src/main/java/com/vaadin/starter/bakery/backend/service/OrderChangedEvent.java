@@ -0,0 +1,83 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+
+/**
+ * Published by {@link OrderService} when an order has been saved or deleted.
+ * Listeners that depend on the committed data should use
+ * {@link org.springframework.transaction.event.TransactionalEventListener}.
+ * Remote events are the changes made by other servers, republished by the
+ * {@link ChangeLog}.
+ */
+public class OrderChangedEvent {
+
+	/**
+	 * The due date and state an order is counted under in the
+	 * {@link OrderCounters}.
+	 */
+	public record Slot(LocalDate dueDate, OrderState state) {
+	}
+
+	private final Long orderId;
+	private final boolean created;
+	private final boolean deleted;
+	private final boolean remote;
+	private final Slot before;
+	private final Slot after;
+
+	public OrderChangedEvent(Long orderId, boolean deleted) {
+		this(orderId, false, deleted);
+	}
+
+	public OrderChangedEvent(Long orderId, boolean created, boolean deleted) {
+		this(orderId, created, deleted, false);
+	}
+
+	public OrderChangedEvent(Long orderId, boolean created, boolean deleted, boolean remote) {
+		this(orderId, created, deleted, remote, null, null);
+	}
+
+	public OrderChangedEvent(Long orderId, boolean created, boolean deleted, boolean remote, Slot before,
+			Slot after) {
+		this.orderId = orderId;
+		this.created = created;
+		this.deleted = deleted;
+		this.remote = remote;
+		this.before = before;
+		this.after = after;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public boolean isCreated() {
+		return created;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public boolean isRemote() {
+		return remote;
+	}
+
+	/**
+	 * @return the slot of the order in the database before the change,
+	 *         <code>null</code> for created orders or when not known
+	 */
+	public Slot getBefore() {
+		return before;
+	}
+
+	/**
+	 * @return the slot of the order in the database after the change,
+	 *         <code>null</code> for deleted orders or when not known
+	 */
+	public Slot getAfter() {
+		return after;
+	}
+}
@@ -0,0 +1,140 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Orders stored column by column in primitive arrays, one row per order, with
+ * the items of row <code>r</code> at the indexes from
+ * <code>itemStart[r]</code> to <code>itemStart[r + 1]</code> of the item
+ * columns.
+ * <p>
+ * Rows are only appended, a changed order gets a new row and its old row is
+ * marked {@link #DELETED} before the new one is published. A single writer
+ * appends under the lock of {@link OrderAnalytics}; readers scan the rows
+ * below {@link #size()}, which is published after the row has been written. Growing copies the columns into a
+ * new instance, so readers of the previous one are not affected.
+ */
+final class OrderColumns {
+
+	static final byte DELETED = -1;
+
+	final int[] dueDay;
+	final byte[] state;
+	final int[] pickupLocation;
+	final long[] totalCents;
+	final int[] itemStart;
+	final int[] itemProduct;
+	final int[] itemQuantity;
+	final long[] itemCents;
+
+	private volatile int size;
+	private int itemCount;
+	private int deleted;
+
+	OrderColumns(int capacity, int itemCapacity) {
+		dueDay = new int[capacity];
+		state = new byte[capacity];
+		pickupLocation = new int[capacity];
+		totalCents = new long[capacity];
+		itemStart = new int[capacity + 1];
+		itemProduct = new int[itemCapacity];
+		itemQuantity = new int[itemCapacity];
+		itemCents = new long[itemCapacity];
+	}
+
+	private OrderColumns(OrderColumns from, int capacity, int itemCapacity) {
+		dueDay = Arrays.copyOf(from.dueDay, capacity);
+		state = Arrays.copyOf(from.state, capacity);
+		pickupLocation = Arrays.copyOf(from.pickupLocation, capacity);
+		totalCents = Arrays.copyOf(from.totalCents, capacity);
+		itemStart = Arrays.copyOf(from.itemStart, capacity + 1);
+		itemProduct = Arrays.copyOf(from.itemProduct, itemCapacity);
+		itemQuantity = Arrays.copyOf(from.itemQuantity, itemCapacity);
+		itemCents = Arrays.copyOf(from.itemCents, itemCapacity);
+		size = from.size;
+		itemCount = from.itemCount;
+		deleted = from.deleted;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int deleted() {
+		return deleted;
+	}
+
+	/**
+	 * Returns columns with room for the given number of additional rows and
+	 * items, either these or a grown copy.
+	 */
+	OrderColumns ensureCapacity(int rows, int items) {
+		if (size + rows <= dueDay.length && itemCount + items <= itemProduct.length) {
+			return this;
+		}
+		int capacity = grow(dueDay.length, size + rows);
+		int itemCapacity = grow(itemProduct.length, itemCount + items);
+		return new OrderColumns(this, capacity, itemCapacity);
+	}
+
+	/**
+	 * Copies the rows not deleted into new columns.
+	 *
+	 * @param newRows
+	 *            filled with the new row of each old row, -1 for deleted rows
+	 */
+	OrderColumns compact(int[] newRows) {
+		OrderColumns compacted = new OrderColumns(grow(0, size - deleted), grow(0, itemCount));
+		for (int row = 0; row < size; row++) {
+			if (state[row] == DELETED) {
+				newRows[row] = -1;
+				continue;
+			}
+			for (int item = itemStart[row]; item < itemStart[row + 1]; item++) {
+				compacted.appendItem(itemProduct[item], itemQuantity[item], itemCents[item]);
+			}
+			newRows[row] = compacted.append(dueDay[row], state[row], pickupLocation[row], totalCents[row]);
+		}
+		return compacted;
+	}
+
+	/**
+	 * Writes the item at the next free item index, see
+	 * {@link #append(int, byte, int, long)}. The capacity must have been
+	 * ensured.
+	 */
+	void appendItem(int product, int quantity, long cents) {
+		itemProduct[itemCount] = product;
+		itemQuantity[itemCount] = quantity;
+		itemCents[itemCount] = cents;
+		itemCount++;
+	}
+
+	/**
+	 * Appends a row owning the items appended since the previous row. The
+	 * capacity must have been ensured.
+	 *
+	 * @return the new row
+	 */
+	int append(int day, byte orderState, int location, long cents) {
+		int row = size;
+		dueDay[row] = day;
+		state[row] = orderState;
+		pickupLocation[row] = location;
+		totalCents[row] = cents;
+		itemStart[row + 1] = itemCount;
+		size = row + 1;
+		return row;
+	}
+
+	private static int grow(int capacity, int needed) {
+		return needed <= capacity ? capacity : Math.max(needed, capacity + (capacity >> 1) + 16);
+	}
+
+	void delete(int row) {
+		if (state[row] != DELETED) {
+			state[row] = DELETED;
+			deleted++;
+		}
+	}
+}
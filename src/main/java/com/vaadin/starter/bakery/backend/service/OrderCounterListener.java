@@ -0,0 +1,55 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.util.Objects;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+
+/**
+ * Keeps the {@link OrderCounters} up to date with the due date and state of the
+ * orders written, once their transaction commits. Created by Hibernate through the Spring bean container, does
+ * nothing where no {@link OrderCounters} bean exists, e.g. in repository tests.
+ */
+public class OrderCounterListener {
+
+	private final ObjectProvider<OrderCounters> counters;
+
+	@Autowired
+	public OrderCounterListener(ObjectProvider<OrderCounters> counters) {
+		this.counters = counters;
+	}
+
+	@PostLoad
+	public void loaded(Order order) {
+		order.markStored();
+	}
+
+	@PostPersist
+	public void persisted(Order order) {
+		counters.ifAvailable(c -> c.add(order.getDueDate(), order.getState(), 1));
+		order.markStored();
+	}
+
+	@PostUpdate
+	public void updated(Order order) {
+		if (!Objects.equals(order.getDueDate(), order.getStoredDueDate()) || order.getState() != order.getStoredState()) {
+			counters.ifAvailable(c -> {
+				c.add(order.getStoredDueDate(), order.getStoredState(), -1);
+				c.add(order.getDueDate(), order.getState(), 1);
+			});
+		}
+		order.markStored();
+	}
+
+	@PostRemove
+	public void removed(Order order) {
+		counters.ifAvailable(c -> c.add(order.getStoredDueDate(), order.getStoredState(), -1));
+	}
+}
@@ -0,0 +1,191 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+
+/**
+ * Number of orders per due date and state, kept in memory so that reading
+ * them costs no query.
+ * <p>
+ * The {@link OrderCounterListener} collects the changes of the orders written
+ * in a transaction, which are applied when it commits, and the {@link ChangeLog}
+ * applies the changes of the other servers. Writes made directly in the
+ * database are corrected by {@link #reconcile()},
+ * which runs at startup and then every
+ * <code>bakery.order-counters.reconcile</code>.
+ * <p>
+ * Changes and reconciliation are applied under the lock of this instance,
+ * readers do not lock. Transactions hold the commit lock for reading from
+ * before they commit until their changes are applied, and reconciliation
+ * holds it for writing while it reads and replaces the counts, so that a
+ * commit is either fully in the replaced counts or applied on top of the
+ * database counts, never both.
+ */
+@Service
+public class OrderCounters implements HasLogger {
+
+	private final OrderRepository orderRepository;
+
+	private volatile Map<Key, LongAdder> counts = new ConcurrentHashMap<>();
+
+	private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+	@Autowired
+	public OrderCounters(OrderRepository orderRepository) {
+		this.orderRepository = orderRepository;
+	}
+
+	public long get(LocalDate dueDate, OrderState state) {
+		LongAdder count = counts.get(new Key(dueDate, state));
+		return count == null ? 0 : count.sum();
+	}
+
+	public long get(LocalDate dueDate, Collection<OrderState> states) {
+		long sum = 0;
+		for (OrderState state : states) {
+			sum += get(dueDate, state);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the number of orders due on the given date, in any state
+	 */
+	public long get(LocalDate dueDate) {
+		long sum = 0;
+		for (OrderState state : OrderState.values()) {
+			sum += get(dueDate, state);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the number of orders in the given state, for any due date
+	 */
+	public long get(OrderState state) {
+		long sum = 0;
+		for (Map.Entry<Key, LongAdder> entry : counts.entrySet()) {
+			if (entry.getKey().state() == state) {
+				sum += entry.getValue().sum();
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Adds to the count when the current transaction commits, or immediately
+	 * outside of transactions.
+	 */
+	void add(LocalDate dueDate, OrderState state, long delta) {
+		if (dueDate == null || state == null) {
+			return;
+		}
+		Key key = new Key(dueDate, state);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(Map.of(key, delta));
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		Map<Key, Long> pending = (Map<Key, Long>) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			Map<Key, Long> changes = new HashMap<>();
+			TransactionSynchronizationManager.bindResource(this, changes);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				private boolean committing;
+
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					commitLock.readLock().lock();
+					committing = true;
+				}
+
+				@Override
+				public void afterCommit() {
+					apply(changes);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(OrderCounters.this);
+					if (committing) {
+						commitLock.readLock().unlock();
+					}
+				}
+			});
+			pending = changes;
+		}
+		pending.merge(key, delta, Long::sum);
+	}
+
+	private synchronized void apply(Map<Key, Long> changes) {
+		for (Map.Entry<Key, Long> change : changes.entrySet()) {
+			counts.computeIfAbsent(change.getKey(), key -> new LongAdder()).add(change.getValue());
+		}
+	}
+
+	/**
+	 * Replaces the counts with the ones in the database. Waits for the
+	 * transactions committing meanwhile to apply their changes, and holds back
+	 * new commits until the counts are replaced.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${bakery.order-counters.reconcile:10m}",
+			fixedDelayString = "${bakery.order-counters.reconcile:10m}")
+	@Transactional(readOnly = true)
+	public void reconcile() {
+		// Taken before the monitor, like the committing transactions do
+		commitLock.writeLock().lock();
+		try {
+			Map<Key, LongAdder> stored = new ConcurrentHashMap<>();
+			for (Object[] row : orderRepository.countPerDayAndState()) {
+				// dueDate, state, orders
+				LongAdder count = new LongAdder();
+				count.add(((Number) row[2]).longValue());
+				stored.put(new Key((LocalDate) row[0], (OrderState) row[1]), count);
+			}
+			replace(stored);
+		} finally {
+			commitLock.writeLock().unlock();
+		}
+	}
+
+	private synchronized void replace(Map<Key, LongAdder> stored) {
+		long drift = 0;
+		for (Map.Entry<Key, LongAdder> entry : counts.entrySet()) {
+			LongAdder count = stored.get(entry.getKey());
+			drift += Math.abs(entry.getValue().sum() - (count == null ? 0 : count.sum()));
+		}
+		for (Map.Entry<Key, LongAdder> entry : stored.entrySet()) {
+			if (!counts.containsKey(entry.getKey())) {
+				drift += entry.getValue().sum();
+			}
+		}
+		counts = stored;
+		if (drift > 0) {
+			getLogger().info("Corrected order counters by {}", drift);
+		}
+	}
+
+	private record Key(LocalDate dueDate, OrderState state) {
+	}
+}
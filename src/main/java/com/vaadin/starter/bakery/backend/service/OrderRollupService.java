@@ -0,0 +1,203 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.OrderRollup;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.repositories.OrderRollupRepository;
+import com.vaadin.starter.bakery.backend.repositories.PickupLocationRepository;
+import com.vaadin.starter.bakery.backend.repositories.ProductRepository;
+
+/**
+ * Maintains the {@link OrderRollup} table.
+ * <p>
+ * Writers capture the contribution of an order before and after changing it
+ * and apply the difference in the same transaction. Revenue is booked with the
+ * unit prices stored on the order items, so product price changes do not
+ * restate the orders taken before them.
+ */
+@Service
+public class OrderRollupService implements HasLogger {
+
+	private static final int ORDERS = 0;
+	private static final int QUANTITY = 1;
+	private static final int REVENUE = 2;
+
+	private final OrderRepository orderRepository;
+	private final OrderRollupRepository orderRollupRepository;
+	private final PickupLocationRepository pickupLocationRepository;
+	private final ProductRepository productRepository;
+
+	@Autowired
+	public OrderRollupService(OrderRepository orderRepository, OrderRollupRepository orderRollupRepository,
+			PickupLocationRepository pickupLocationRepository, ProductRepository productRepository) {
+		this.orderRepository = orderRepository;
+		this.orderRollupRepository = orderRollupRepository;
+		this.pickupLocationRepository = pickupLocationRepository;
+		this.productRepository = productRepository;
+	}
+
+	/**
+	 * Reads what the given order currently contributes to the rollup, as stored
+	 * in the database.
+	 *
+	 * @param orderId
+	 *            the order id, or <code>null</code> for an order not saved yet
+	 * @return the contribution, never <code>null</code>
+	 */
+	public Map<RollupKey, long[]> capture(Long orderId) {
+		if (orderId == null) {
+			return Collections.emptyMap();
+		}
+
+		Map<RollupKey, long[]> contribution = new HashMap<>();
+		for (Object[] row : orderRepository.findRollupContribution(orderId)) {
+			// dueDate, pickupLocation, state, product, quantity, revenue
+			LocalDate dueDate = (LocalDate) row[0];
+			Long pickupLocationId = (Long) row[1];
+			OrderState state = (OrderState) row[2];
+			long quantity = ((Number) row[4]).longValue();
+			long revenue = ((Number) row[5]).longValue();
+
+			long[] orderTotals = contribution.computeIfAbsent(
+					new RollupKey(dueDate, pickupLocationId, state, null), k -> new long[3]);
+			orderTotals[ORDERS] = 1;
+			orderTotals[QUANTITY] += quantity;
+			orderTotals[REVENUE] += revenue;
+
+			long[] productTotals = contribution.computeIfAbsent(
+					new RollupKey(dueDate, pickupLocationId, state, (Long) row[3]), k -> new long[3]);
+			productTotals[ORDERS] = 1;
+			productTotals[QUANTITY] += quantity;
+			productTotals[REVENUE] += revenue;
+		}
+		return contribution;
+	}
+
+	/**
+	 * Applies the difference between two contributions of the same order. Must
+	 * be called in the transaction that changed the order, after flushing it.
+	 */
+	@Transactional
+	public void update(Map<RollupKey, long[]> before, Map<RollupKey, long[]> after) {
+		Set<RollupKey> keys = new HashSet<>(before.keySet());
+		keys.addAll(after.keySet());
+		for (RollupKey key : keys) {
+			long[] oldTotals = before.getOrDefault(key, new long[3]);
+			long[] newTotals = after.getOrDefault(key, new long[3]);
+			long orders = newTotals[ORDERS] - oldTotals[ORDERS];
+			long quantity = newTotals[QUANTITY] - oldTotals[QUANTITY];
+			long revenue = newTotals[REVENUE] - oldTotals[REVENUE];
+			if (orders == 0 && quantity == 0 && revenue == 0) {
+				continue;
+			}
+
+			int updated;
+			if (key.productId() == null) {
+				updated = orderRollupRepository.addToOrderTotals(key.dueDate(), key.pickupLocationId(), key.state(),
+						orders, quantity, revenue);
+			} else {
+				updated = orderRollupRepository.addToProductTotals(key.dueDate(), key.pickupLocationId(),
+						key.state(), key.productId(), orders, quantity, revenue);
+			}
+			if (updated == 0) {
+				OrderRollup rollup = createRollup(key);
+				rollup.add(orders, quantity, revenue);
+				orderRollupRepository.save(rollup);
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the whole rollup table from the orders.
+	 */
+	@Transactional
+	public void rebuild() {
+		long start = System.currentTimeMillis();
+		orderRollupRepository.deleteAllInBatch();
+
+		Map<RollupKey, OrderRollup> rollups = new HashMap<>();
+		for (Object[] row : orderRepository.sumPerDayPickupLocationStateAndProduct()) {
+			// dueDate, pickupLocation, state, product, orders, quantity, revenue
+			LocalDate dueDate = (LocalDate) row[0];
+			Long pickupLocationId = (Long) row[1];
+			OrderState state = (OrderState) row[2];
+			long orders = ((Number) row[4]).longValue();
+			long quantity = ((Number) row[5]).longValue();
+			long revenue = ((Number) row[6]).longValue();
+
+			rollups.computeIfAbsent(new RollupKey(dueDate, pickupLocationId, state, (Long) row[3]),
+					this::createRollup).add(orders, quantity, revenue);
+			rollups.computeIfAbsent(new RollupKey(dueDate, pickupLocationId, state, null), this::createRollup)
+					.add(0, quantity, revenue);
+		}
+		for (Object[] row : orderRepository.countPerDayPickupLocationAndState()) {
+			// dueDate, pickupLocation, state, orders
+			RollupKey key = new RollupKey((LocalDate) row[0], (Long) row[1], (OrderState) row[2], null);
+			rollups.computeIfAbsent(key, this::createRollup).add(((Number) row[3]).longValue(), 0, 0);
+		}
+
+		orderRollupRepository.saveAll(rollups.values());
+		getLogger().info("Rebuilt order rollup with {} rows in {} ms", rollups.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Backfills the unit prices of items saved before they were stored, and the
+	 * rollup when orders have been written around the services, e.g. by the
+	 * data generator.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional
+	public void rebuildIfEmpty() {
+		int priced = orderRepository.fillMissingUnitPrices();
+		if (priced > 0) {
+			getLogger().info("Stored the current product prices on {} order items", priced);
+		}
+		if (orderRollupRepository.count() == 0 && orderRepository.count() > 0) {
+			rebuild();
+		}
+	}
+
+	public List<Object[]> countPerDay(OrderState state, LocalDate from, LocalDate to) {
+		return orderRollupRepository.countPerDay(state, from, to);
+	}
+
+	public List<Object[]> sumPerMonth(OrderState state, LocalDate from, LocalDate to) {
+		return orderRollupRepository.sumPerMonth(state, from, to);
+	}
+
+	public List<Object[]> sumQuantityPerProduct(OrderState state, LocalDate from, LocalDate to) {
+		return orderRollupRepository.sumQuantityPerProduct(state, from, to);
+	}
+
+	public List<Object[]> countPerPickupLocation(OrderState state, LocalDate from, LocalDate to) {
+		return orderRollupRepository.countPerPickupLocation(state, from, to);
+	}
+
+	private OrderRollup createRollup(RollupKey key) {
+		return new OrderRollup(key.dueDate(), pickupLocationRepository.getReferenceById(key.pickupLocationId()),
+				key.productId() == null ? null : productRepository.getReferenceById(key.productId()), key.state());
+	}
+
+	/**
+	 * Identifies a rollup row. A <code>null</code> product stands for the totals
+	 * of whole orders.
+	 */
+	public record RollupKey(LocalDate dueDate, Long pickupLocationId, OrderState state, Long productId) {
+	}
+}
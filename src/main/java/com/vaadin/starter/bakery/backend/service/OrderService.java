@@ -2,49 +2,80 @@ package com.vaadin.starter.bakery.backend.service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
 import com.vaadin.starter.bakery.backend.data.DashboardData;
 import com.vaadin.starter.bakery.backend.data.DeliveryStats;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.TextSearch;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
+import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
 import com.vaadin.starter.bakery.backend.data.entity.Product;
 import com.vaadin.starter.bakery.backend.data.entity.User;
 import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.service.OrderAnalytics.Filter;
+import com.vaadin.starter.bakery.backend.service.OrderAnalytics.Measure;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent.Slot;
+import com.vaadin.starter.bakery.backend.service.OrderRollupService.RollupKey;
 
 @Service
 public class OrderService implements CrudService<Order> {
 
 	private final OrderRepository orderRepository;
 
+	private final OrderRollupService orderRollupService;
+
+	private final OrderCounters orderCounters;
+
+	private final OrderAnalytics orderAnalytics;
+
+	private final ApplicationEventPublisher eventPublisher;
+
 	@Autowired
-	public OrderService(OrderRepository orderRepository) {
+	public OrderService(OrderRepository orderRepository, OrderRollupService orderRollupService,
+			OrderCounters orderCounters, OrderAnalytics orderAnalytics, ApplicationEventPublisher eventPublisher) {
 		super();
 		this.orderRepository = orderRepository;
+		this.orderRollupService = orderRollupService;
+		this.orderCounters = orderCounters;
+		this.orderAnalytics = orderAnalytics;
+		this.eventPublisher = eventPublisher;
 	}
 
 	private static final Set<OrderState> notAvailableStates = Collections.unmodifiableSet(
 			EnumSet.complementOf(EnumSet.of(OrderState.DELIVERED, OrderState.READY, OrderState.CANCELLED)));
 
 	@Transactional(rollbackOn = Exception.class)
+	@CacheEvict(cacheResolver = COUNT_CACHE_RESOLVER, allEntries = true)
 	public Order saveOrder(User currentUser, Long id, BiConsumer<User, Order> orderFiller) {
+		Map<RollupKey, long[]> before = orderRollupService.capture(id);
 		Order order;
 		if (id == null) {
 			order = new Order(currentUser);
@@ -52,49 +83,196 @@ public class OrderService implements CrudService<Order> {
 			order = load(id);
 		}
 		orderFiller.accept(currentUser, order);
-		return orderRepository.save(order);
+		return saveAndUpdateRollup(order, before);
 	}
 
 	@Transactional(rollbackOn = Exception.class)
+	@CacheEvict(cacheResolver = COUNT_CACHE_RESOLVER, allEntries = true)
 	public Order saveOrder(Order order) {
-		return orderRepository.save(order);
+		return saveAndUpdateRollup(order, orderRollupService.capture(order.getId()));
+	}
+
+	@Override
+	@Transactional(rollbackOn = Exception.class)
+	public Order save(User currentUser, Order entity) {
+		return saveOrder(entity);
+	}
+
+	@Override
+	@Transactional(rollbackOn = Exception.class)
+	public void delete(User currentUser, Order entity) {
+		if (entity == null) {
+			throw new EntityNotFoundException();
+		}
+		Map<RollupKey, long[]> before = orderRollupService.capture(entity.getId());
+		orderRepository.delete(entity);
+		orderRepository.flush();
+		orderRollupService.update(before, Collections.emptyMap());
+		eventPublisher.publishEvent(new OrderChangedEvent(entity.getId(), false, true, false, slot(before), null));
 	}
 
 	@Transactional(rollbackOn = Exception.class)
 	public Order addComment(User currentUser, Order order, String comment) {
+		Map<RollupKey, long[]> before = orderRollupService.capture(order.getId());
 		order.addHistoryItem(currentUser, comment);
-		return orderRepository.save(order);
+		return saveAndUpdateRollup(order, before);
+	}
+
+	private Order saveAndUpdateRollup(Order order, Map<RollupKey, long[]> before) {
+		boolean created = order.getId() == null;
+		Order saved = orderRepository.saveAndFlush(order);
+		Map<RollupKey, long[]> after = orderRollupService.capture(saved.getId());
+		orderRollupService.update(before, after);
+		eventPublisher.publishEvent(
+				new OrderChangedEvent(saved.getId(), created, false, false, slot(before), slot(after)));
+		return saved;
 	}
 
-	public Page<Order> findAnyMatchingAfterDueDate(Optional<String> optionalFilter,
+	private static Slot slot(Map<RollupKey, long[]> contribution) {
+		for (RollupKey key : contribution.keySet()) {
+			if (key.productId() == null) {
+				return new Slot(key.dueDate(), key.state());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Fetches the cards of the orders matching the filters. The cards are read
+	 * by two projection queries, one for the orders and one for their items,
+	 * instead of loading managed order entities.
+	 */
+	public Slice<OrderCardData> findAnyMatchingAfterDueDate(Optional<String> optionalFilter,
 			Optional<LocalDate> optionalFilterDate, Pageable pageable) {
-		if (optionalFilter.isPresent() && !optionalFilter.get().isEmpty()) {
+		Optional<String> searchQuery = toSearchQuery(optionalFilter);
+		Slice<OrderCardData> cards;
+		if (searchQuery.isPresent()) {
+			cards = findByCustomerName(searchQuery.get(), optionalFilterDate, pageable);
+		} else {
 			if (optionalFilterDate.isPresent()) {
-				return orderRepository.findByCustomerFullNameContainingIgnoreCaseAndDueDateAfter(
-						optionalFilter.get(), optionalFilterDate.get(), pageable);
+				cards = orderRepository.findCardsByDueDateAfter(optionalFilterDate.get(), pageable);
 			} else {
-				return orderRepository.findByCustomerFullNameContainingIgnoreCase(optionalFilter.get(), pageable);
+				cards = orderRepository.findCardsBy(pageable);
 			}
-		} else {
+		}
+		return new SliceImpl<>(withItems(cards.getContent()), cards.getPageable(), cards.hasNext());
+	}
+
+	private Slice<OrderCardData> findByCustomerName(String searchQuery, Optional<LocalDate> optionalFilterDate,
+			Pageable pageable) {
+		Set<String> trigrams = TextSearch.trigrams(searchQuery);
+		String pattern = TextSearch.containsPattern(searchQuery);
+		if (trigrams.isEmpty()) {
+			// Too short for the trigram index
 			if (optionalFilterDate.isPresent()) {
-				return orderRepository.findByDueDateAfter(optionalFilterDate.get(), pageable);
+				return orderRepository.findCardsByCustomerSearchKeyLikeAndDueDateAfter(pattern,
+						optionalFilterDate.get(), pageable);
 			} else {
-				return orderRepository.findAll(pageable);
+				return orderRepository.findCardsByCustomerSearchKeyLike(pattern, pageable);
 			}
 		}
+
+		if (optionalFilterDate.isPresent()) {
+			return orderRepository.findCardsByCustomerSearchTrigramsAndDueDateAfter(trigrams, trigrams.size(),
+					pattern, optionalFilterDate.get(), pageable);
+		} else {
+			return orderRepository.findCardsByCustomerSearchTrigrams(trigrams, trigrams.size(), pattern, pageable);
+		}
 	}
-	
-	@Transactional
-	public List<OrderSummary> findAnyMatchingStartingToday() {
-		return orderRepository.findByDueDateGreaterThanEqual(LocalDate.now());
+
+	/**
+	 * Fetches the cards of the orders following the given card in the dueDate,
+	 * dueTime, id order, without skipping over the preceding rows in the
+	 * database. Customer name searches return few enough rows to be paged by
+	 * offset.
+	 */
+	public Slice<OrderCardData> findAllAfterDueDate(Optional<LocalDate> optionalFilterDate, OrderCardData after,
+			int limit) {
+		// One extra row tells whether there is a next slice
+		List<OrderCardData> cards;
+		if (optionalFilterDate.isPresent()) {
+			cards = orderRepository.findCardsAfterAndDueDateAfter(after.getDueDate(), after.getDueTime(),
+					after.getId(), optionalFilterDate.get(), Limit.of(limit + 1));
+		} else {
+			cards = orderRepository.findCardsAfter(after.getDueDate(), after.getDueTime(), after.getId(),
+					Limit.of(limit + 1));
+		}
+		boolean hasNext = cards.size() > limit;
+		if (hasNext) {
+			cards = cards.subList(0, limit);
+		}
+		return new SliceImpl<>(withItems(cards), Pageable.ofSize(limit), hasNext);
+	}
+
+	/**
+	 * Reads the stored version of an order, without loading it.
+	 */
+	public Optional<Integer> findVersion(Long id) {
+		return orderRepository.findVersionById(id);
+	}
+
+	/**
+	 * Fetches the cards of the given orders, in no particular order. Orders
+	 * that do not exist are left out.
+	 */
+	public List<OrderCardData> findCards(Collection<Long> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return withItems(orderRepository.findCardsByIdIn(ids));
+	}
+
+	private List<OrderCardData> withItems(List<OrderCardData> cards) {
+		if (cards.isEmpty()) {
+			return cards;
+		}
+		Map<Long, List<OrderCardData.Item>> items = new HashMap<>();
+		List<Long> ids = cards.stream().map(OrderCardData::getId).collect(Collectors.toList());
+		for (Object[] row : orderRepository.findCardItems(ids)) {
+			items.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+					.add(new OrderCardData.Item((String) row[1], ((Number) row[2]).intValue()));
+		}
+		return cards.stream().map(card -> card.withItems(items.getOrDefault(card.getId(), Collections.emptyList())))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the first order due on or after each of the given days among the
+	 * orders matching the filters, in the dueDate, dueTime, id order of the
+	 * cards. Each lookup reads a single row from the dueDate index. Cached with
+	 * the row counts, as saving orders can change the result.
+	 *
+	 * @return the order id for each day, <code>null</code> if there is none
+	 */
+	@Cacheable(cacheResolver = COUNT_CACHE_RESOLVER)
+	public List<Long> findFirstIdsFrom(Optional<String> optionalFilter, Optional<LocalDate> optionalFilterDate,
+			List<LocalDate> days) {
+		Optional<String> searchQuery = toSearchQuery(optionalFilter);
+		Set<String> trigrams = searchQuery.map(TextSearch::trigrams).orElse(Collections.emptySet());
+		String pattern = searchQuery.map(TextSearch::containsPattern).orElse(null);
+		List<Long> ids = new ArrayList<>(days.size());
+		for (LocalDate day : days) {
+			LocalDate from = optionalFilterDate.map(date -> date.plusDays(1)).filter(day::isBefore).orElse(day);
+			List<Long> first;
+			if (searchQuery.isEmpty()) {
+				first = orderRepository.findIdsFrom(from, Limit.of(1));
+			} else if (trigrams.isEmpty()) {
+				// Too short for the trigram index
+				first = orderRepository.findIdsByCustomerSearchKeyLikeFrom(pattern, from, Limit.of(1));
+			} else {
+				first = orderRepository.findIdsByCustomerSearchTrigramsFrom(trigrams, trigrams.size(), pattern, from,
+						Limit.of(1));
+			}
+			ids.add(first.isEmpty() ? null : first.get(0));
+		}
+		return ids;
 	}
 
+	@Cacheable(cacheResolver = COUNT_CACHE_RESOLVER)
 	public long countAnyMatchingAfterDueDate(Optional<String> optionalFilter, Optional<LocalDate> optionalFilterDate) {
-		if (optionalFilter.isPresent() && optionalFilterDate.isPresent()) {
-			return orderRepository.countByCustomerFullNameContainingIgnoreCaseAndDueDateAfter(optionalFilter.get(),
-					optionalFilterDate.get());
-		} else if (optionalFilter.isPresent()) {
-			return orderRepository.countByCustomerFullNameContainingIgnoreCase(optionalFilter.get());
+		Optional<String> searchQuery = toSearchQuery(optionalFilter);
+		if (searchQuery.isPresent()) {
+			return countByCustomerName(searchQuery.get(), optionalFilterDate);
 		} else if (optionalFilterDate.isPresent()) {
 			return orderRepository.countByDueDateAfter(optionalFilterDate.get());
 		} else {
@@ -102,72 +280,193 @@ public class OrderService implements CrudService<Order> {
 		}
 	}
 
-	private DeliveryStats getDeliveryStats() {
+	private long countByCustomerName(String searchQuery, Optional<LocalDate> optionalFilterDate) {
+		Set<String> trigrams = TextSearch.trigrams(searchQuery);
+		if (trigrams.isEmpty()) {
+			// Too short for the trigram index
+			if (optionalFilterDate.isPresent()) {
+				return orderRepository.countByCustomerSearchKeyContainingAndDueDateAfter(searchQuery,
+						optionalFilterDate.get());
+			} else {
+				return orderRepository.countByCustomerSearchKeyContaining(searchQuery);
+			}
+		}
+
+		String pattern = TextSearch.containsPattern(searchQuery);
+		if (optionalFilterDate.isPresent()) {
+			return orderRepository.countByCustomerSearchTrigramsAndDueDateAfter(trigrams, trigrams.size(), pattern,
+					optionalFilterDate.get());
+		} else {
+			return orderRepository.countByCustomerSearchTrigrams(trigrams, trigrams.size(), pattern);
+		}
+	}
+
+	private Optional<String> toSearchQuery(Optional<String> optionalFilter) {
+		return optionalFilter.map(TextSearch::normalize).filter(query -> !query.isEmpty());
+	}
+
+	/**
+	 * Gets the order counts and next delivery times shown on the dashboard. The
+	 * counts are read from the {@link OrderCounters} and each time comes from a
+	 * single indexed lookup, so the cost does not depend on the number of
+	 * orders.
+	 */
+	public DeliveryStats getDeliveryStats() {
 		DeliveryStats stats = new DeliveryStats();
 		LocalDate today = LocalDate.now();
-		stats.setDueToday((int) orderRepository.countByDueDate(today));
-		stats.setDueTomorrow((int) orderRepository.countByDueDate(today.plusDays(1)));
-		stats.setDeliveredToday((int) orderRepository.countByDueDateAndStateIn(today,
-				Collections.singleton(OrderState.DELIVERED)));
-
-		stats.setNotAvailableToday((int) orderRepository.countByDueDateAndStateIn(today, notAvailableStates));
-		stats.setNewOrders((int) orderRepository.countByState(OrderState.NEW));
+		LocalDate tomorrow = today.plusDays(1);
+		stats.setDueToday((int) orderCounters.get(today));
+		stats.setDueTomorrow((int) orderCounters.get(tomorrow));
+		stats.setDeliveredToday((int) orderCounters.get(today, OrderState.DELIVERED));
+		stats.setNotAvailableToday((int) orderCounters.get(today, notAvailableStates));
+		stats.setNewOrders((int) orderCounters.get(OrderState.NEW));
 
+		LocalTime nextReadyToday = orderRepository.findFirstDueTimeByStateAfter(OrderState.READY, today,
+				LocalTime.now());
+		stats.setNextReadyDueTimeToday(nextReadyToday);
+		if (nextReadyToday == null) {
+			stats.setNextReadyDueDateAfterToday(orderRepository.findFirstDueDateByStateAfter(OrderState.READY, today));
+		}
+		stats.setFirstDueTimeTomorrow(orderRepository.findFirstDueTime(tomorrow));
+		stats.setLastOrderCreatedAt(orderRepository.findLastCreatedAt());
 		return stats;
 	}
 
 	public DashboardData getDashboardData(int month, int year) {
+		LocalDate monthStart = LocalDate.of(year, month, 1);
+		LocalDate nextMonthStart = monthStart.plusMonths(1);
+
 		DashboardData data = new DashboardData();
 		data.setDeliveryStats(getDeliveryStats());
-		data.setDeliveriesThisMonth(getDeliveriesPerDay(month, year));
+		data.setDeliveriesThisMonth(getDeliveriesPerDay(monthStart, nextMonthStart));
 		data.setDeliveriesThisYear(getDeliveriesPerMonth(year));
+		data.setSalesPerMonth(getSalesPerMonth(month, year));
+		data.setProductDeliveries(getProductDeliveries(monthStart, nextMonthStart));
+		data.setDeliveriesPerPickupLocation(getDeliveriesPerPickupLocation(monthStart, nextMonthStart));
+		return data;
+	}
 
+	/**
+	 * Gets the revenue of delivered orders per month for the given year and the
+	 * two previous years. The given month is left out as it is incomplete.
+	 *
+	 * @return one row per year starting from the given one, one entry per month
+	 */
+	public Number[][] getSalesPerMonth(int month, int year) {
 		Number[][] salesPerMonth = new Number[3][12];
-		data.setSalesPerMonth(salesPerMonth);
-		List<Object[]> sales = orderRepository.sumPerMonthLastThreeYears(OrderState.DELIVERED, year);
+		if (orderAnalytics.isLoaded()) {
+			long[] sales = orderAnalytics.perMonth(
+					Filter.of(OrderState.DELIVERED, LocalDate.of(year - 2, 1, 1), LocalDate.of(year + 1, 1, 1)),
+					Measure.REVENUE);
+			for (int i = 0; i < sales.length; i++) {
+				int y = 2 - i / 12;
+				if (sales[i] != 0 && !(y == 0 && i % 12 == month - 1)) {
+					salesPerMonth[y][i % 12] = sales[i];
+				}
+			}
+			return salesPerMonth;
+		}
+
+		List<Object[]> sales = orderRollupService.sumPerMonth(OrderState.DELIVERED, LocalDate.of(year - 2, 1, 1),
+				LocalDate.of(year + 1, 1, 1));
 
 		for (Object[] salesData : sales) {
-			// year, month, deliveries
+			// year, month, deliveries, revenue
 			int y = year - (int) salesData[0];
 			int m = (int) salesData[1] - 1;
 			if (y == 0 && m == month - 1) {
 				// skip current month as it contains incomplete data
 				continue;
 			}
-			long count = (long) salesData[2];
-			salesPerMonth[y][m] = count;
+			salesPerMonth[y][m] = ((Number) salesData[3]).longValue();
 		}
+		return salesPerMonth;
+	}
 
+	/**
+	 * Gets the number of delivered orders for each day in the range.
+	 *
+	 * @param from
+	 *            the first day, inclusive
+	 * @param to
+	 *            the last day, exclusive
+	 * @return one entry per day, <code>null</code> for days without deliveries
+	 */
+	public List<Number> getDeliveriesPerDay(LocalDate from, LocalDate to) {
+		if (orderAnalytics.isLoaded()) {
+			return toNullList(orderAnalytics.perDay(Filter.of(OrderState.DELIVERED, from, to), Measure.ORDERS));
+		}
+
+		List<Number> counts = createNullList((int) ChronoUnit.DAYS.between(from, to));
+		for (Object[] result : orderRollupService.countPerDay(OrderState.DELIVERED, from, to)) {
+			int day = (int) ChronoUnit.DAYS.between(from, (LocalDate) result[0]);
+			counts.set(day, ((Number) result[1]).longValue());
+		}
+		return counts;
+	}
+
+	public LinkedHashMap<Product, Integer> getProductDeliveries(LocalDate from, LocalDate to) {
 		LinkedHashMap<Product, Integer> productDeliveries = new LinkedHashMap<>();
-		data.setProductDeliveries(productDeliveries);
-		for (Object[] result : orderRepository.countPerProduct(OrderState.DELIVERED, year, month)) {
-			int sum = ((Long) result[0]).intValue();
-			Product p = (Product) result[1];
-			productDeliveries.put(p, sum);
+		if (orderAnalytics.isLoaded()) {
+			orderAnalytics.perProduct(Filter.of(OrderState.DELIVERED, from, to), Measure.QUANTITY)
+					.forEach((product, quantity) -> productDeliveries.put(product, quantity.intValue()));
+			return productDeliveries;
 		}
 
-		return data;
+		for (Object[] result : orderRollupService.sumQuantityPerProduct(OrderState.DELIVERED, from, to)) {
+			productDeliveries.put((Product) result[1], ((Number) result[0]).intValue());
+		}
+		return productDeliveries;
+	}
+
+	public LinkedHashMap<PickupLocation, Integer> getDeliveriesPerPickupLocation(LocalDate from, LocalDate to) {
+		LinkedHashMap<PickupLocation, Integer> deliveries = new LinkedHashMap<>();
+		if (orderAnalytics.isLoaded()) {
+			orderAnalytics.perPickupLocation(Filter.of(OrderState.DELIVERED, from, to), Measure.ORDERS)
+					.forEach((location, count) -> deliveries.put(location, count.intValue()));
+			return deliveries;
+		}
+
+		for (Object[] result : orderRollupService.countPerPickupLocation(OrderState.DELIVERED, from, to)) {
+			deliveries.put((PickupLocation) result[1], ((Number) result[0]).intValue());
+		}
+		return deliveries;
 	}
 
-	private List<Number> getDeliveriesPerDay(int month, int year) {
-		int daysInMonth = YearMonth.of(year, month).lengthOfMonth();
-		return flattenAndReplaceMissingWithNull(daysInMonth,
-				orderRepository.countPerDay(OrderState.DELIVERED, year, month));
+	/**
+	 * Gets the number of delivered orders for each month of the year.
+	 */
+	public List<Number> getDeliveriesPerMonth(int year) {
+		if (orderAnalytics.isLoaded()) {
+			return toNullList(orderAnalytics.perMonth(
+					Filter.of(OrderState.DELIVERED, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1)),
+					Measure.ORDERS));
+		}
+
+		List<Number> counts = createNullList(12);
+		for (Object[] result : orderRollupService.sumPerMonth(OrderState.DELIVERED, LocalDate.of(year, 1, 1),
+				LocalDate.of(year + 1, 1, 1))) {
+			// year, month, deliveries, revenue
+			counts.set((int) result[1] - 1, ((Number) result[2]).longValue());
+		}
+		return counts;
 	}
 
-	private List<Number> getDeliveriesPerMonth(int year) {
-		return flattenAndReplaceMissingWithNull(12, orderRepository.countPerMonth(OrderState.DELIVERED, year));
+	private List<Number> toNullList(long[] totals) {
+		List<Number> counts = createNullList(totals.length);
+		for (int i = 0; i < totals.length; i++) {
+			if (totals[i] != 0) {
+				counts.set(i, totals[i]);
+			}
+		}
+		return counts;
 	}
 
-	private List<Number> flattenAndReplaceMissingWithNull(int length, List<Object[]> list) {
+	private List<Number> createNullList(int length) {
 		List<Number> counts = new ArrayList<>();
 		for (int i = 0; i < length; i++) {
 			counts.add(null);
 		}
-
-		for (Object[] result : list) {
-			counts.set((Integer) result[0] - 1, (Number) result[1]);
-		}
 		return counts;
 	}
 
@@ -3,9 +3,9 @@ package com.vaadin.starter.bakery.backend.service;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
@@ -23,12 +23,12 @@ public class PickupLocationService implements FilterableCrudService<PickupLocati
 		this.pickupLocationRepository = pickupLocationRepository;
 	}
 
-	public Page<PickupLocation> findAnyMatching(Optional<String> filter, Pageable pageable) {
+	public Slice<PickupLocation> findAnyMatching(Optional<String> filter, Pageable pageable) {
 		if (filter.isPresent()) {
 			String repositoryFilter = "%" + filter.get() + "%";
 			return pickupLocationRepository.findByNameLikeIgnoreCase(repositoryFilter, pageable);
 		} else {
-			return pickupLocationRepository.findAll(pageable);
+			return pickupLocationRepository.findBy(pageable);
 		}
 	}
 
@@ -3,9 +3,10 @@ package com.vaadin.starter.bakery.backend.service;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
@@ -18,13 +19,16 @@ public class ProductService implements FilterableCrudService<Product> {
 
 	private final ProductRepository productRepository;
 
+	private final ApplicationEventPublisher eventPublisher;
+
 	@Autowired
-	public ProductService(ProductRepository productRepository) {
+	public ProductService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
 		this.productRepository = productRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	@Override
-	public Page<Product> findAnyMatching(Optional<String> filter, Pageable pageable) {
+	public Slice<Product> findAnyMatching(Optional<String> filter, Pageable pageable) {
 		if (filter.isPresent()) {
 			String repositoryFilter = "%" + filter.get() + "%";
 			return productRepository.findByNameLikeIgnoreCase(repositoryFilter, pageable);
@@ -43,7 +47,7 @@ public class ProductService implements FilterableCrudService<Product> {
 		}
 	}
 
-	public Page<Product> find(Pageable pageable) {
+	public Slice<Product> find(Pageable pageable) {
 		return productRepository.findBy(pageable);
 	}
 
@@ -59,13 +63,22 @@ public class ProductService implements FilterableCrudService<Product> {
 
 	@Override
 	public Product save(User currentUser, Product entity) {
+		boolean created = entity.getId() == null;
+		Product saved;
 		try {
-			return FilterableCrudService.super.save(currentUser, entity);
+			saved = FilterableCrudService.super.save(currentUser, entity);
 		} catch (DataIntegrityViolationException e) {
 			throw new UserFriendlyDataException(
 					"There is already a product with that name. Please select a unique name for the product.");
 		}
+		eventPublisher.publishEvent(new EntityChangedEvent(Product.class, saved.getId(), created, false));
+		return saved;
+	}
 
+	@Override
+	public void delete(User currentUser, Product entity) {
+		FilterableCrudService.super.delete(currentUser, entity);
+		eventPublisher.publishEvent(new EntityChangedEvent(Product.class, entity.getId(), false, true));
 	}
 
 }
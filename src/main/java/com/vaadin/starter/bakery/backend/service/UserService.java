@@ -1,10 +1,15 @@
 package com.vaadin.starter.bakery.backend.service;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,12 +23,20 @@ public class UserService implements FilterableCrudService<User> {
 	private static final String DELETING_SELF_NOT_PERMITTED = "You cannot delete your own account";
 	private final UserRepository userRepository;
 
+	// Sessions cache the logged in user until it is saved or deleted, see
+	// SessionCurrentUser
+	private final AtomicLong changeCount = new AtomicLong();
+	private final Map<Long, Long> lastChanges = new ConcurrentHashMap<>();
+
+	private final ApplicationEventPublisher eventPublisher;
+
 	@Autowired
-	public UserService(UserRepository userRepository) {
+	public UserService(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
 		this.userRepository = userRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
-	public Page<User> findAnyMatching(Optional<String> filter, Pageable pageable) {
+	public Slice<User> findAnyMatching(Optional<String> filter, Pageable pageable) {
 		if (filter.isPresent()) {
 			String repositoryFilter = "%" + filter.get() + "%";
 			return getRepository()
@@ -50,14 +63,18 @@ public class UserService implements FilterableCrudService<User> {
 		return userRepository;
 	}
 
-	public Page<User> find(Pageable pageable) {
+	public Slice<User> find(Pageable pageable) {
 		return getRepository().findBy(pageable);
 	}
 
 	@Override
 	public User save(User currentUser, User entity) {
 		throwIfUserLocked(entity);
-		return getRepository().saveAndFlush(entity);
+		boolean created = entity.getId() == null;
+		User saved = getRepository().saveAndFlush(entity);
+		userChanged(saved.getId());
+		eventPublisher.publishEvent(new EntityChangedEvent(User.class, saved.getId(), created, false));
+		return saved;
 	}
 
 	@Override
@@ -66,6 +83,35 @@ public class UserService implements FilterableCrudService<User> {
 		throwIfDeletingSelf(currentUser, userToDelete);
 		throwIfUserLocked(userToDelete);
 		FilterableCrudService.super.delete(currentUser, userToDelete);
+		userChanged(userToDelete.getId());
+		eventPublisher.publishEvent(new EntityChangedEvent(User.class, userToDelete.getId(), false, true));
+	}
+
+	@EventListener
+	public void userChangedElsewhere(EntityChangedEvent event) {
+		if (event.isRemote() && event.getType() == User.class) {
+			userChanged(event.getId());
+		}
+	}
+
+	/**
+	 * Returns the number of user saves and deletions so far, to be passed to
+	 * {@link #isChangedSince(Long, long)}.
+	 */
+	public long getChangeCount() {
+		return changeCount.get();
+	}
+
+	/**
+	 * Checks whether the user has been saved or deleted after
+	 * {@link #getChangeCount()} returned the given count.
+	 */
+	public boolean isChangedSince(Long userId, long count) {
+		return lastChanges.getOrDefault(userId, 0L) > count;
+	}
+
+	private void userChanged(Long userId) {
+		lastChanges.put(userId, changeCount.incrementAndGet());
 	}
 
 	private void throwIfDeletingSelf(User currentUser, User user) {
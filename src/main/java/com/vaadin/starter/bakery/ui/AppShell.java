@@ -1,6 +1,7 @@
 package com.vaadin.starter.bakery.ui;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.component.page.Viewport;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.theme.Theme;
@@ -8,6 +9,7 @@ import com.vaadin.flow.theme.Theme;
 import static com.vaadin.starter.bakery.ui.utils.BakeryConst.VIEWPORT;
 
 @Viewport(VIEWPORT)
+@Push
 @Theme(value = "bakery", variant = "dark")
 @PWA(name = "Bakery App Starter", shortName = "###Bakery###",
 		startPath = "login",
@@ -0,0 +1,104 @@
+package com.vaadin.starter.bakery.ui.components;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.starter.bakery.app.AsyncConfiguration;
+import com.vaadin.starter.bakery.app.HasLogger;
+
+/**
+ * Debounces the searches of one view and runs them in the background.
+ * <p>
+ * A search submitted within the debounce window of the previous one replaces
+ * it. The query of a search runs outside of the session lock and its result is
+ * applied through {@link UI#access(com.vaadin.flow.server.Command)}, unless a
+ * newer search has been submitted meanwhile, so that a slow query for "Jo" never
+ * overwrites the results for "John". The query should read everything the
+ * consumer shows, the consumer runs while holding the session lock.
+ */
+@SpringComponent
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class SearchPipeline implements HasLogger {
+
+	private final ScheduledExecutorService executor;
+	private final SearchPipelineMetrics metrics;
+	private final Duration debounce;
+
+	private final AtomicLong generation = new AtomicLong();
+	private ScheduledFuture<?> pending;
+
+	@Autowired
+	public SearchPipeline(@Qualifier(AsyncConfiguration.SEARCH_EXECUTOR) ScheduledExecutorService executor,
+			SearchPipelineMetrics metrics, @Value("${bakery.search.debounce:200ms}") Duration debounce) {
+		this.executor = executor;
+		this.metrics = metrics;
+		this.debounce = debounce;
+	}
+
+	/**
+	 * Submits a search.
+	 *
+	 * @param ui
+	 *            the UI to apply the result in
+	 * @param filter
+	 *            the search filter
+	 * @param query
+	 *            run in a background thread with the filter
+	 * @param consumer
+	 *            run in the UI with the filter and the query result, which is
+	 *            <code>null</code> if the query failed
+	 */
+	public synchronized <F, R> void submit(UI ui, F filter, Function<F, R> query, BiConsumer<F, R> consumer) {
+		long searchGeneration = generation.incrementAndGet();
+		metrics.searchSubmitted();
+		if (pending != null && pending.cancel(false)) {
+			metrics.searchCoalesced();
+		}
+		pending = executor.schedule(() -> run(ui, searchGeneration, filter, query, consumer), debounce.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	private <F, R> void run(UI ui, long searchGeneration, F filter, Function<F, R> query,
+			BiConsumer<F, R> consumer) {
+		if (searchGeneration != generation.get()) {
+			metrics.searchCoalesced();
+			return;
+		}
+
+		metrics.searchExecuted();
+		R result = null;
+		try {
+			result = query.apply(filter);
+		} catch (RuntimeException e) {
+			getLogger().warn("Search for {} failed", filter, e);
+		}
+
+		R searchResult = result;
+		try {
+			ui.access(() -> {
+				if (searchGeneration == generation.get()) {
+					consumer.accept(filter, searchResult);
+				} else {
+					metrics.searchSuperseded();
+				}
+			});
+		} catch (UIDetachedException e) {
+			// The view was closed while searching
+		}
+		getLogger().debug("{}", metrics);
+	}
+}
@@ -0,0 +1,69 @@
+package com.vaadin.starter.bakery.ui.components;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vaadin.flow.spring.annotation.SpringComponent;
+
+/**
+ * Application wide counters of the {@link SearchPipeline}s.
+ */
+@SpringComponent
+public class SearchPipelineMetrics {
+
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder executed = new LongAdder();
+	private final LongAdder superseded = new LongAdder();
+
+	void searchSubmitted() {
+		submitted.increment();
+	}
+
+	void searchCoalesced() {
+		coalesced.increment();
+	}
+
+	void searchExecuted() {
+		executed.increment();
+	}
+
+	void searchSuperseded() {
+		superseded.increment();
+	}
+
+	/**
+	 * @return the number of searches requested, e.g. one per filter change
+	 */
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	/**
+	 * @return the number of searches replaced by a newer one within the debounce
+	 *         window, before any query was run
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return the number of searches whose query was run
+	 */
+	public long getExecuted() {
+		return executed.sum();
+	}
+
+	/**
+	 * @return the number of executed searches whose result was dropped because a
+	 *         newer search had been submitted meanwhile
+	 */
+	public long getSuperseded() {
+		return superseded.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "SearchPipelineMetrics{submitted=" + getSubmitted() + ", coalesced=" + getCoalesced() + ", executed="
+				+ getExecuted() + ", superseded=" + getSuperseded() + '}';
+	}
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
 import com.vaadin.starter.bakery.backend.service.FilterableCrudService;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.vaadin.artur.spring.dataprovider.FilterablePageableDataProvider;
 
@@ -30,7 +31,8 @@ public class CrudEntityDataProvider<T extends AbstractEntity> extends Filterable
 
 	@Override
 	protected Page<T> fetchFromBackEnd(Query<T, String> query, Pageable pageable) {
-		return crudService.findAnyMatching(query.getFilter(), pageable);
+		// Only the content is used, the size comes from sizeInBackEnd
+		return new PageImpl<>(crudService.findAnyMatching(query.getFilter(), pageable).getContent());
 	}
 
 	@Override
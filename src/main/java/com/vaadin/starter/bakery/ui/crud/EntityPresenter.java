@@ -168,6 +168,15 @@ public class EntityPresenter<T extends AbstractEntity, V extends EntityView<T>>
 		});
 	}
 
+	/**
+	 * Like {@link #loadEntity(Long, CrudOperationListener)}, for an entity
+	 * that has already been loaded.
+	 */
+	public void setEntity(T entity, CrudOperationListener<T> onSuccess) {
+		state.updateEntity(entity, false);
+		onSuccess.execute(state.getEntity());
+	}
+
 	public T createNew() {
 		state.updateEntity(crudService.createNew(currentUser.getUser()), true);
 		return state.getEntity();
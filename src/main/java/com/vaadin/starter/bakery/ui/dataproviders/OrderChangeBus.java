@@ -0,0 +1,163 @@
+package com.vaadin.starter.bakery.ui.dataproviders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+
+/**
+ * Pushes the orders saved or deleted on this server to the UIs showing order
+ * grids. Changes are collected for a short while, so that a burst of saves
+ * reads the changed cards in one query and reaches each UI in one push.
+ */
+@SpringComponent
+public class OrderChangeBus implements HasLogger {
+
+	/**
+	 * The orders changed since the previous delivery.
+	 */
+	public static class OrderChanges {
+
+		private final List<OrderCardData> saved;
+		private final Set<Long> created;
+		private final Set<Long> deleted;
+
+		OrderChanges(List<OrderCardData> saved, Set<Long> created, Set<Long> deleted) {
+			this.saved = saved;
+			this.created = created;
+			this.deleted = deleted;
+		}
+
+		/**
+		 * Gets the current cards of the created and updated orders.
+		 */
+		public List<OrderCardData> getSaved() {
+			return saved;
+		}
+
+		public boolean isCreated(Long orderId) {
+			return created.contains(orderId);
+		}
+
+		public Set<Long> getDeleted() {
+			return deleted;
+		}
+	}
+
+	private record Subscriber(Consumer<Command> access, Consumer<OrderChanges> listener) {
+	}
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	private final OrderService orderService;
+
+	private final TaskScheduler taskScheduler;
+
+	private final Duration delay;
+
+	private Set<Long> saved = new LinkedHashSet<>();
+
+	private Set<Long> created = new LinkedHashSet<>();
+
+	private Set<Long> deleted = new LinkedHashSet<>();
+
+	private ScheduledFuture<?> delivery;
+
+	@Autowired
+	public OrderChangeBus(OrderService orderService, TaskScheduler taskScheduler,
+			@Value("${bakery.order-changes.delay:500ms}") Duration delay) {
+		this.orderService = orderService;
+		this.taskScheduler = taskScheduler;
+		this.delay = delay;
+	}
+
+	/**
+	 * Calls the listener with the changed orders, in {@link UI#access} of the
+	 * given UI. Remove the registration when the UI no longer shows orders.
+	 */
+	public Registration register(UI ui, Consumer<OrderChanges> listener) {
+		return register(ui::access, listener);
+	}
+
+	/**
+	 * Calls the listener with the changed orders through the given access,
+	 * which throws {@link UIDetachedException} once the listener is gone.
+	 */
+	Registration register(Consumer<Command> access, Consumer<OrderChanges> listener) {
+		Subscriber subscriber = new Subscriber(access, listener);
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void orderChanged(OrderChangedEvent event) {
+		if (subscribers.isEmpty()) {
+			return;
+		}
+		Long id = event.getOrderId();
+		if (event.isDeleted()) {
+			saved.remove(id);
+			if (!created.remove(id)) {
+				deleted.add(id);
+			}
+		} else {
+			saved.add(id);
+			if (event.isCreated()) {
+				created.add(id);
+			}
+		}
+		if (delivery == null) {
+			delivery = taskScheduler.schedule(this::deliver, Instant.now().plus(delay));
+		}
+	}
+
+	private void deliver() {
+		Set<Long> savedIds;
+		Set<Long> createdIds;
+		Set<Long> deletedIds;
+		synchronized (this) {
+			savedIds = saved;
+			createdIds = created;
+			deletedIds = deleted;
+			saved = new LinkedHashSet<>();
+			created = new LinkedHashSet<>();
+			deleted = new LinkedHashSet<>();
+			delivery = null;
+		}
+		OrderChanges changes;
+		try {
+			changes = new OrderChanges(orderService.findCards(savedIds), Collections.unmodifiableSet(createdIds),
+					Collections.unmodifiableSet(deletedIds));
+		} catch (RuntimeException e) {
+			getLogger().warn("Reading the changed orders failed", e);
+			return;
+		}
+		for (Subscriber subscriber : subscribers) {
+			try {
+				subscriber.access().accept(() -> subscriber.listener().accept(changes));
+			} catch (UIDetachedException e) {
+				subscribers.remove(subscriber);
+			}
+		}
+	}
+}
@@ -2,22 +2,31 @@ package com.vaadin.starter.bakery.ui.dataproviders;
 
 import java.io.Serializable;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.vaadin.artur.spring.dataprovider.FilterablePageableDataProvider;
 
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.data.provider.KeyMapper;
 import com.vaadin.flow.data.provider.Query;
 import com.vaadin.flow.data.provider.QuerySortOrder;
 import com.vaadin.flow.data.provider.QuerySortOrderBuilder;
 import com.vaadin.flow.spring.annotation.SpringComponent;
 import com.vaadin.flow.spring.annotation.UIScope;
-import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.TextSearch;
 import com.vaadin.starter.bakery.backend.service.OrderService;
 import com.vaadin.starter.bakery.ui.utils.BakeryConst;
 
@@ -26,7 +35,7 @@ import com.vaadin.starter.bakery.ui.utils.BakeryConst;
  */
 @SpringComponent
 @UIScope
-public class OrdersGridDataProvider extends FilterablePageableDataProvider<Order, OrdersGridDataProvider.OrderFilter> {
+public class OrdersGridDataProvider extends FilterablePageableDataProvider<OrderCardData, OrdersGridDataProvider.OrderFilter> {
 
 	public static class OrderFilter implements Serializable {
 		private String filter;
@@ -50,10 +59,30 @@ public class OrdersGridDataProvider extends FilterablePageableDataProvider<Order
 		}
 	}
 
+	// Enough for scrolling through 50 000 orders with the default page size
+	private static final int MAX_PAGE_POSITIONS = 1000;
+
 	private final OrderService orderService;
 	private List<QuerySortOrder> defaultSortOrders;
-	private Consumer<Page<Order>> pageObserver;
-	
+
+	/**
+	 * Last rows of the pages fetched so far, by the offset of the row following
+	 * them. They are only valid for the filter they were read with.
+	 */
+	private final Map<Long, OrderCardData> pagePositions = new LinkedHashMap<Long, OrderCardData>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, OrderCardData> eldest) {
+			return size() > MAX_PAGE_POSITIONS;
+		}
+	};
+	private String pagePositionsFilter;
+
+	private OrderFilter filter = OrderFilter.getEmptyFilter();
+
+	// Read in the background for the filter, served to the first fetch after it is set
+	private Slice<OrderCardData> firstPage;
+	private OrderFilter firstPageFilter;
+
 	@Autowired
 	public OrdersGridDataProvider(OrderService orderService) {
 		this.orderService = orderService;
@@ -73,14 +102,156 @@ public class OrdersGridDataProvider extends FilterablePageableDataProvider<Order
 	}
 
 	@Override
-	protected Page<Order> fetchFromBackEnd(Query<Order, OrderFilter> query, Pageable pageable) {
+	protected Page<OrderCardData> fetchFromBackEnd(Query<OrderCardData, OrderFilter> query, Pageable pageable) {
+		Optional<Page<OrderCardData>> prefetched = takeFirstPage(query.getFilter().orElse(null), pageable);
+		if (prefetched.isPresent()) {
+			return prefetched.get();
+		}
+
 		OrderFilter filter = query.getFilter().orElse(OrderFilter.getEmptyFilter());
-		Page<Order> page = orderService.findAnyMatchingAfterDueDate(Optional.ofNullable(filter.getFilter()),
-				getFilterDate(filter.isShowPrevious()), pageable);
-		if (pageObserver != null) {
-			pageObserver.accept(page);
+		Optional<String> optionalFilter = Optional.ofNullable(filter.getFilter());
+		Optional<LocalDate> optionalFilterDate = getFilterDate(filter.isShowPrevious());
+
+		String positionsFilter = optionalFilter.orElse("") + "|"
+				+ optionalFilterDate.map(LocalDate::toString).orElse("");
+		if (!positionsFilter.equals(pagePositionsFilter)) {
+			pagePositions.clear();
+			pagePositionsFilter = positionsFilter;
 		}
-		return page;
+
+		// Customer name searches return few rows and are paged by offset
+		boolean seekable = optionalFilter.filter(f -> !f.isEmpty()).isEmpty()
+				&& pageable.getSort().equals(getDefaultSort());
+		OrderCardData previous = pagePositions.get(pageable.getOffset());
+		Slice<OrderCardData> slice;
+		if (seekable && previous != null) {
+			slice = orderService.findAllAfterDueDate(optionalFilterDate, previous, pageable.getPageSize());
+		} else {
+			// First page, arbitrary jump or custom sort order
+			slice = orderService.findAnyMatchingAfterDueDate(optionalFilter, optionalFilterDate, pageable);
+		}
+
+		if (seekable && slice.hasContent()) {
+			OrderCardData last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			pagePositions.put(pageable.getOffset() + slice.getNumberOfElements(), last);
+		}
+		// Only the content is used, the size comes from sizeInBackEnd
+		return new PageImpl<>(slice.getContent());
+	}
+
+	private Optional<Page<OrderCardData>> takeFirstPage(OrderFilter queryFilter, Pageable pageable) {
+		Slice<OrderCardData> page = firstPage;
+		boolean usable = page != null && queryFilter == firstPageFilter && pageable.getOffset() == 0
+				&& pageable.getSort().equals(getDefaultSort())
+				&& (pageable.getPageSize() <= page.getNumberOfElements() || !page.hasNext());
+		firstPage = null;
+		firstPageFilter = null;
+		if (!usable) {
+			return Optional.empty();
+		}
+		List<OrderCardData> content = page.getContent();
+		return Optional.of(new PageImpl<>(content.subList(0, Math.min(pageable.getPageSize(), content.size()))));
+	}
+
+	private Sort getDefaultSort() {
+		return Sort.by(BakeryConst.DEFAULT_SORT_DIRECTION, BakeryConst.ORDER_SORT_FIELDS);
+	}
+
+	@Override
+	public void setFilter(OrderFilter filter) {
+		this.filter = filter != null ? filter : OrderFilter.getEmptyFilter();
+		super.setFilter(filter);
+	}
+
+	/**
+	 * Sets the filter along with the first page of the orders matching it, read
+	 * by {@link #fetchFirstPage(OrderFilter, int)}, so that the grid does not
+	 * query the orders while holding the session lock.
+	 */
+	public void setFilter(OrderFilter filter, Slice<OrderCardData> firstPage) {
+		setFilter(filter);
+		this.firstPage = firstPage;
+		this.firstPageFilter = filter;
+	}
+
+	/**
+	 * Reads the first page of the orders matching the filter, in the default
+	 * sort order. Does not touch the state of the data provider, so it can be
+	 * called from a background thread.
+	 */
+	public Slice<OrderCardData> fetchFirstPage(OrderFilter filter, int pageSize) {
+		return orderService.findAnyMatchingAfterDueDate(Optional.ofNullable(filter.getFilter()),
+				getFilterDate(filter.isShowPrevious()), PageRequest.of(0, pageSize, getDefaultSort()));
+	}
+
+	/**
+	 * Shows the changes made to orders elsewhere. Shown orders that still
+	 * match the filter are refreshed in place. Orders entering or leaving the
+	 * rows change the row count, which needs all rows to be refreshed, once
+	 * for all the changes.
+	 * <p>
+	 * Deleted orders only refresh the rows when shown, the filter of a deleted
+	 * order is unknown. The count of a grid scrolled short of it is corrected
+	 * by the next refresh.
+	 *
+	 * @param shown
+	 *            tells whether the grid has fetched the order with the given
+	 *            id, see {@link #fetchedBy(Grid)}
+	 * @return whether all rows were refreshed
+	 */
+	public boolean ordersChanged(OrderChangeBus.OrderChanges changes, Predicate<Long> shown) {
+		boolean rowsChanged = changes.getDeleted().stream().anyMatch(shown);
+		List<OrderCardData> refreshed = new ArrayList<>();
+		for (OrderCardData card : changes.getSaved()) {
+			boolean matches = matches(card);
+			if (shown.test(card.getId())) {
+				if (matches) {
+					refreshed.add(card);
+				} else {
+					rowsChanged = true;
+				}
+			} else if (matches && changes.isCreated(card.getId())) {
+				rowsChanged = true;
+			}
+		}
+		if (rowsChanged) {
+			refreshAll();
+		} else {
+			refreshed.forEach(this::refreshItem);
+		}
+		return rowsChanged;
+	}
+
+	/**
+	 * Tells whether the grid has fetched the order with the given id.
+	 */
+	public static Predicate<Long> fetchedBy(Grid<OrderCardData> grid) {
+		KeyMapper<OrderCardData> keyMapper = grid.getDataCommunicator().getKeyMapper();
+		// Cards are identified by the order id, see getId
+		return id -> keyMapper.has(new OrderCardData(id, 0, null, null, null, null, null));
+	}
+
+	private boolean matches(OrderCardData card) {
+		Optional<LocalDate> filterDate = getFilterDate(filter.isShowPrevious());
+		if (filterDate.isPresent() && !card.getDueDate().isAfter(filterDate.get())) {
+			return false;
+		}
+		String searchQuery = TextSearch.normalize(filter.getFilter());
+		return searchQuery == null || searchQuery.isEmpty() || TextSearch.normalize(card.getCustomerName()).contains(searchQuery);
+	}
+
+	@Override
+	public void refreshAll() {
+		pagePositions.clear();
+		firstPage = null;
+		super.refreshAll();
+	}
+
+	@Override
+	public void refreshItem(OrderCardData item) {
+		// The item may have moved to another page
+		pagePositions.clear();
+		super.refreshItem(item);
 	}
 
 	@Override
@@ -89,10 +260,18 @@ public class OrdersGridDataProvider extends FilterablePageableDataProvider<Order
 	}
 
 	@Override
-	protected int sizeInBackEnd(Query<Order, OrderFilter> query) {
-		OrderFilter filter = query.getFilter().orElse(OrderFilter.getEmptyFilter());
-		return (int) orderService
-				.countAnyMatchingAfterDueDate(Optional.ofNullable(filter.getFilter()), getFilterDate(filter.isShowPrevious()));
+	protected int sizeInBackEnd(Query<OrderCardData, OrderFilter> query) {
+		return (int) count(query.getFilter().orElse(OrderFilter.getEmptyFilter()));
+	}
+
+	/**
+	 * Counts the orders matching the filter. The count is cached until orders
+	 * are saved, so calling this ahead of {@link #setFilter(Object)} moves the
+	 * cost of the count query out of the request applying the filter.
+	 */
+	public long count(OrderFilter filter) {
+		return orderService.countAnyMatchingAfterDueDate(Optional.ofNullable(filter.getFilter()),
+				getFilterDate(filter.isShowPrevious()));
 	}
 
 	private Optional<LocalDate> getFilterDate(boolean showPrevious) {
@@ -103,12 +282,17 @@ public class OrdersGridDataProvider extends FilterablePageableDataProvider<Order
 		return Optional.of(LocalDate.now().minusDays(1));
 	}
 
-	public void setPageObserver(Consumer<Page<Order>> pageObserver) {
-		this.pageObserver = pageObserver;
+	/**
+	 * Finds the first order matching the filter on or after each of the given
+	 * days, see {@link OrderService#findFirstIdsFrom(Optional, Optional, List)}.
+	 */
+	public List<Long> findFirstIds(OrderFilter filter, List<LocalDate> days) {
+		return orderService.findFirstIdsFrom(Optional.ofNullable(filter.getFilter()),
+				getFilterDate(filter.isShowPrevious()), days);
 	}
 
 	@Override
-	public Object getId(Order item) {
+	public Object getId(OrderCardData item) {
 		return item.getId();
 	}
 }
@@ -0,0 +1,91 @@
+package com.vaadin.starter.bakery.ui.utils;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.ServiceInitEvent;
+import com.vaadin.flow.server.VaadinService;
+import com.vaadin.flow.server.VaadinServiceInitListener;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.starter.bakery.app.HasLogger;
+
+/**
+ * Logs an estimate of the heap retained by each UI after every navigation, to
+ * compare the session memory of the views. Enabled by
+ * <code>bakery.ui-size.log</code>.
+ * <p>
+ * The estimate is the size of the serialized UI, leaving out what it shares
+ * with other UIs: the session, the service and objects that cannot be
+ * serialized, like Spring beans.
+ */
+@SpringComponent
+public class UiSizeLogger implements VaadinServiceInitListener, HasLogger {
+
+	private final boolean enabled;
+
+	@Autowired
+	public UiSizeLogger(@Value("${bakery.ui-size.log:false}") boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	public void serviceInit(ServiceInitEvent event) {
+		if (enabled) {
+			event.getSource().addUIInitListener(e -> e.getUI().addAfterNavigationListener(
+					navigation -> getLogger().info("UI size on {}: {} bytes", navigation.getLocation().getPath(),
+							estimateSize(e.getUI()))));
+		}
+	}
+
+	/**
+	 * Estimates the heap retained by the UI. Must be called with the session
+	 * locked.
+	 */
+	public static long estimateSize(UI ui) {
+		CountingOutputStream counter = new CountingOutputStream();
+		try (ObjectOutputStream out = new UiOutputStream(counter)) {
+			out.writeObject(ui);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not serialize the UI", e);
+		}
+		return counter.count;
+	}
+
+	private static class UiOutputStream extends ObjectOutputStream {
+
+		UiOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) {
+			if (obj instanceof VaadinSession || obj instanceof VaadinService || !(obj instanceof Serializable)) {
+				return null;
+			}
+			return obj;
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
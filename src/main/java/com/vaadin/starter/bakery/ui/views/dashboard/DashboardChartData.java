@@ -0,0 +1,38 @@
+package com.vaadin.starter.bakery.ui.views.dashboard;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The title, categories and series values of a dashboard chart, computed once
+ * per {@link DashboardSnapshot}. Views only copy them into the configuration of
+ * their chart, the series objects themselves belong to a single chart and
+ * cannot be shared. The values must be treated as read-only.
+ */
+public class DashboardChartData {
+
+	private final String title;
+	private final String[] categories;
+	private final Map<String, List<Number>> series;
+
+	DashboardChartData(String title, String[] categories, Map<String, List<Number>> series) {
+		this.title = title;
+		this.categories = categories;
+		this.series = series;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String[] getCategories() {
+		return categories;
+	}
+
+	/**
+	 * @return the values of each series by series name, in display order
+	 */
+	public Map<String, List<Number>> getSeries() {
+		return series;
+	}
+}
@@ -27,4 +27,10 @@ public class DashboardCounterLabel extends LitTemplate {
 		subtitle.setText(data.getSubtitle());
 		count.setText(String.valueOf(data.getCount()));
 	}
+
+	public void setUnavailable(String title) {
+		this.title.setText(title);
+		subtitle.setText("Could not be loaded");
+		count.setText("-");
+	}
 }
@@ -0,0 +1,92 @@
+package com.vaadin.starter.bakery.ui.views.dashboard;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountData;
+import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountDataWithChart;
+
+/**
+ * Everything shown on the dashboard, computed once by the
+ * {@link DashboardSnapshotService} and shared by all dashboard views. The
+ * charts are ready to be bound, views only copy their {@link DashboardChartData}. Each part
+ * completes on its own so that views can show it as soon as it is available.
+ * The values must be treated as read-only.
+ */
+public class DashboardSnapshot {
+
+	private final LocalDate date;
+	private final CompletableFuture<OrdersCountDataWithChart> todayCount;
+	private final CompletableFuture<OrdersCountData> notAvailableCount;
+	private final CompletableFuture<OrdersCountData> newCount;
+	private final CompletableFuture<OrdersCountData> tomorrowCount;
+	private final CompletableFuture<DashboardChartData> deliveriesThisMonth;
+	private final CompletableFuture<DashboardChartData> deliveriesThisYear;
+	private final CompletableFuture<DashboardChartData> salesPerMonth;
+	private final CompletableFuture<DashboardChartData> productDeliveries;
+	private final CompletableFuture<Void> all;
+
+	DashboardSnapshot(LocalDate date, CompletableFuture<OrdersCountDataWithChart> todayCount,
+			CompletableFuture<OrdersCountData> notAvailableCount, CompletableFuture<OrdersCountData> newCount,
+			CompletableFuture<OrdersCountData> tomorrowCount, CompletableFuture<DashboardChartData> deliveriesThisMonth,
+			CompletableFuture<DashboardChartData> deliveriesThisYear, CompletableFuture<DashboardChartData> salesPerMonth,
+			CompletableFuture<DashboardChartData> productDeliveries) {
+		this.date = date;
+		this.todayCount = todayCount;
+		this.notAvailableCount = notAvailableCount;
+		this.newCount = newCount;
+		this.tomorrowCount = tomorrowCount;
+		this.deliveriesThisMonth = deliveriesThisMonth;
+		this.deliveriesThisYear = deliveriesThisYear;
+		this.salesPerMonth = salesPerMonth;
+		this.productDeliveries = productDeliveries;
+		this.all = CompletableFuture.allOf(todayCount, notAvailableCount, newCount, tomorrowCount,
+				deliveriesThisMonth, deliveriesThisYear, salesPerMonth, productDeliveries);
+	}
+
+	/**
+	 * @return the day the snapshot was computed for
+	 */
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public CompletableFuture<OrdersCountDataWithChart> getTodayCount() {
+		return todayCount;
+	}
+
+	public CompletableFuture<OrdersCountData> getNotAvailableCount() {
+		return notAvailableCount;
+	}
+
+	public CompletableFuture<OrdersCountData> getNewCount() {
+		return newCount;
+	}
+
+	public CompletableFuture<OrdersCountData> getTomorrowCount() {
+		return tomorrowCount;
+	}
+
+	public CompletableFuture<DashboardChartData> getDeliveriesThisMonth() {
+		return deliveriesThisMonth;
+	}
+
+	public CompletableFuture<DashboardChartData> getDeliveriesThisYear() {
+		return deliveriesThisYear;
+	}
+
+	public CompletableFuture<DashboardChartData> getSalesPerMonth() {
+		return salesPerMonth;
+	}
+
+	public CompletableFuture<DashboardChartData> getProductDeliveries() {
+		return productDeliveries;
+	}
+
+	/**
+	 * @return completes when all parts have completed
+	 */
+	public CompletableFuture<Void> getAll() {
+		return all;
+	}
+}
@@ -0,0 +1,159 @@
+package com.vaadin.starter.bakery.ui.views.dashboard;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.starter.bakery.app.AsyncConfiguration;
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.DeliveryStats;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+
+/**
+ * Holds the {@link DashboardSnapshot} shared by all dashboard views of this
+ * server.
+ * <p>
+ * The snapshot is rebuilt every <code>bakery.dashboard.refresh</code> while the
+ * dashboard is in use, i.e. a view has read it within
+ * <code>bakery.dashboard.idle</code>, and by the next view opened after an
+ * order has been saved or deleted on this server. The independent dashboard queries of a
+ * rebuild run in parallel on the dashboard executor. Concurrent views share the
+ * rebuild in progress, so opening many dashboards at once runs the dashboard
+ * queries only once. Other servers' changes show up with the scheduled rebuild.
+ */
+@SpringComponent
+public class DashboardSnapshotService implements HasLogger {
+
+	private final OrderService orderService;
+	private final Executor executor;
+	private final long idleNanos;
+
+	private volatile DashboardSnapshot snapshot;
+	private volatile long lastRead;
+	private volatile boolean stale;
+	private boolean refreshing;
+
+	@Autowired
+	public DashboardSnapshotService(OrderService orderService,
+			@Qualifier(AsyncConfiguration.DASHBOARD_EXECUTOR) Executor executor,
+			@Value("${bakery.dashboard.idle:5m}") Duration idle) {
+		this.orderService = orderService;
+		this.executor = executor;
+		this.idleNanos = idle.toNanos();
+	}
+
+	/**
+	 * Gets the current snapshot, starting a rebuild if it is out of date. Does
+	 * not wait for the queries, the parts of a rebuilt snapshot complete in the
+	 * background.
+	 */
+	public DashboardSnapshot getSnapshot() {
+		lastRead = System.nanoTime();
+		DashboardSnapshot current = snapshot;
+		if (isUpToDate(current)) {
+			return current;
+		}
+		return rebuild();
+	}
+
+	/**
+	 * Rebuilds the snapshot in the background while the previous one is still
+	 * served, replacing it once all parts have completed. Skipped while no view
+	 * reads the snapshot, the next view to open then rebuilds it if outdated.
+	 */
+	@Scheduled(fixedDelayString = "${bakery.dashboard.refresh:60s}")
+	public synchronized void refreshPeriodically() {
+		if (snapshot == null || refreshing || System.nanoTime() - lastRead > idleNanos) {
+			return;
+		}
+		DashboardSnapshot previous = snapshot;
+		DashboardSnapshot next = build(LocalDate.now());
+		refreshing = true;
+		next.getAll().whenComplete((result, error) -> refreshed(previous, next, error));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void orderChanged(OrderChangedEvent event) {
+		stale = true;
+	}
+
+	private boolean isUpToDate(DashboardSnapshot current) {
+		return current != null && !stale && current.getDate().equals(LocalDate.now());
+	}
+
+	private synchronized DashboardSnapshot rebuild() {
+		DashboardSnapshot current = snapshot;
+		if (isUpToDate(current)) {
+			// Rebuilt by another thread while waiting for the lock
+			return current;
+		}
+		// Cleared before building so that changes made meanwhile are not lost
+		stale = false;
+		current = build(LocalDate.now());
+		snapshot = current;
+		DashboardSnapshot built = current;
+		current.getAll().whenComplete((result, error) -> {
+			if (error != null) {
+				failed(built, error);
+			}
+		});
+		return current;
+	}
+
+	private synchronized void refreshed(DashboardSnapshot previous, DashboardSnapshot next, Throwable error) {
+		refreshing = false;
+		if (error != null) {
+			getLogger().warn("Dashboard refresh failed", error);
+		} else if (snapshot == previous) {
+			// Otherwise a view has started a newer rebuild meanwhile
+			snapshot = next;
+		}
+	}
+
+	private synchronized void failed(DashboardSnapshot failed, Throwable error) {
+		getLogger().warn("Dashboard rebuild failed", error);
+		if (snapshot == failed) {
+			stale = true;
+		}
+	}
+
+	private DashboardSnapshot build(LocalDate today) {
+		long start = System.nanoTime();
+		LocalDate monthStart = today.withDayOfMonth(1);
+		LocalDate nextMonthStart = monthStart.plusMonths(1);
+
+		CompletableFuture<DeliveryStats> deliveryStats = query(orderService::getDeliveryStats);
+
+		DashboardSnapshot next = new DashboardSnapshot(today,
+				deliveryStats.thenApply(DashboardUtils::getTodaysOrdersCountData),
+				deliveryStats.thenApply(DashboardUtils::getNotAvailableOrdersCountData),
+				deliveryStats.thenApply(DashboardUtils::getNewOrdersCountData),
+				deliveryStats.thenApply(DashboardUtils::getTomorrowOrdersCountData),
+				query(() -> DashboardUtils.getDeliveriesThisMonthChartData(
+						orderService.getDeliveriesPerDay(monthStart, nextMonthStart), today)),
+				query(() -> DashboardUtils.getDeliveriesThisYearChartData(
+						orderService.getDeliveriesPerMonth(today.getYear()), today)),
+				query(() -> DashboardUtils.getYearlySalesChartData(
+						orderService.getSalesPerMonth(today.getMonthValue(), today.getYear()), today)),
+				query(() -> DashboardUtils.getProductSplitChartData(
+						orderService.getProductDeliveries(monthStart, nextMonthStart), today)));
+		next.getAll().thenRun(() -> getLogger().debug("Dashboard snapshot built in {} ms",
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+		return next;
+	}
+
+	private <T> CompletableFuture<T> query(Supplier<T> query) {
+		return CompletableFuture.supplyAsync(query, executor);
+	}
+}
@@ -2,53 +2,43 @@ package com.vaadin.starter.bakery.ui.views.dashboard;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import com.vaadin.starter.bakery.backend.data.DeliveryStats;
-import com.vaadin.starter.bakery.backend.data.OrderState;
-import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.ui.utils.FormattingUtils;
 import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountData;
 import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountDataWithChart;
 
 public class DashboardUtils {
 
+	private static final String[] MONTH_LABELS = new String[] {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul",
+			"Aug", "Sep", "Oct", "Nov", "Dec"};
 
 	private static final String NEXT_DELIVERY_PATTERN = "Next Delivery %s";
 
-	public static OrdersCountDataWithChart getTodaysOrdersCountData(DeliveryStats deliveryStats,
-			Iterator<OrderSummary> ordersIterator) {
+	public static OrdersCountDataWithChart getTodaysOrdersCountData(DeliveryStats deliveryStats) {
 		OrdersCountDataWithChart ordersCountData = new OrdersCountDataWithChart("Remaining Today", null,
 				deliveryStats.getDueToday() - deliveryStats.getDeliveredToday(), deliveryStats.getDueToday());
 
-		LocalDate date = LocalDate.now();
-		LocalTime time = LocalTime.now();
-		while (ordersIterator.hasNext()) {
-
-			OrderSummary order = ordersIterator.next();
-			if (isOrderNextToDeliver(order, date, time)) {
-				if (order.getDueDate().isEqual(date))
-					ordersCountData.setSubtitle(String.format(NEXT_DELIVERY_PATTERN, order.getDueTime()));
-				else
-					ordersCountData.setSubtitle(String.format(NEXT_DELIVERY_PATTERN,
-							order.getDueDate().getMonthValue() + "/" + order.getDueDate().getDayOfMonth()));
-
-				break;
-			}
-
+		// next ready order starting from current time
+		if (deliveryStats.getNextReadyDueTimeToday() != null) {
+			ordersCountData
+					.setSubtitle(String.format(NEXT_DELIVERY_PATTERN, deliveryStats.getNextReadyDueTimeToday()));
+		} else if (deliveryStats.getNextReadyDueDateAfterToday() != null) {
+			LocalDate dueDate = deliveryStats.getNextReadyDueDateAfterToday();
+			ordersCountData.setSubtitle(
+					String.format(NEXT_DELIVERY_PATTERN, dueDate.getMonthValue() + "/" + dueDate.getDayOfMonth()));
 		}
 		return ordersCountData;
 	}
 
-	private static boolean isOrderNextToDeliver(OrderSummary order, LocalDate nowDate, LocalTime nowTime) {
-		// ready order starting from current time
-		return order.getState() == OrderState.READY
-				&& ((order.getDueDate().isEqual(nowDate) && order.getDueTime().isAfter(nowTime))
-						|| order.getDueDate().isAfter(nowDate));
-	}
-
 	public static OrdersCountData getNotAvailableOrdersCountData(DeliveryStats deliveryStats) {
 		OrdersCountData ordersCountData = new OrdersCountData("Not Available", "Delivery tomorrow",
 				deliveryStats.getNotAvailableToday());
@@ -56,44 +46,56 @@ public class DashboardUtils {
 		return ordersCountData;
 	}
 
-	public static OrdersCountData getTomorrowOrdersCountData(DeliveryStats deliveryStats,
-			Iterator<OrderSummary> ordersIterator) {
+	public static OrdersCountData getTomorrowOrdersCountData(DeliveryStats deliveryStats) {
 		OrdersCountData ordersCountData = new OrdersCountData("Tomorrow", null, deliveryStats.getDueTomorrow());
 
-		LocalDate date = LocalDate.now().plusDays(1);
-		LocalTime minTime = LocalTime.MAX;
-		while (ordersIterator.hasNext()) {
-			OrderSummary order = ordersIterator.next();
-			if (order.getDueDate().isBefore(date)) {
-				continue;
-			}
-
-			if (order.getDueDate().isEqual(date)) {
-				if (order.getDueTime().isBefore(minTime)) {
-					minTime = order.getDueTime();
-				}
-			}
-
-			if (order.getDueDate().isAfter(date)) {
-				break;
-			}
-		}
-
-		if (!LocalTime.MAX.equals(minTime))
-			ordersCountData.setSubtitle("First delivery " + minTime);
+		if (deliveryStats.getFirstDueTimeTomorrow() != null)
+			ordersCountData.setSubtitle("First delivery " + deliveryStats.getFirstDueTimeTomorrow());
 
 		return ordersCountData;
 	}
 
-	public static OrdersCountData getNewOrdersCountData(DeliveryStats deliveryStats, Order lastOrder) {
-		return new OrdersCountData("New", createSubtitle(lastOrder), deliveryStats.getNewOrders());
+	public static OrdersCountData getNewOrdersCountData(DeliveryStats deliveryStats) {
+		return new OrdersCountData("New", createSubtitle(deliveryStats.getLastOrderCreatedAt()),
+				deliveryStats.getNewOrders());
+	}
+
+	public static DashboardChartData getDeliveriesThisMonthChartData(List<Number> deliveriesThisMonth,
+			LocalDate today) {
+		String[] days = IntStream.rangeClosed(1, deliveriesThisMonth.size()).mapToObj(String::valueOf)
+				.toArray(String[]::new);
+		return new DashboardChartData("Deliveries in " + FormattingUtils.getFullMonthName(today), days,
+				Map.of("per Day", deliveriesThisMonth));
+	}
+
+	public static DashboardChartData getDeliveriesThisYearChartData(List<Number> deliveriesThisYear,
+			LocalDate today) {
+		return new DashboardChartData("Deliveries in " + today.getYear(), MONTH_LABELS,
+				Map.of("per Month", deliveriesThisYear));
+	}
+
+	public static DashboardChartData getYearlySalesChartData(Number[][] salesPerMonth, LocalDate today) {
+		Map<String, List<Number>> series = new LinkedHashMap<>();
+		for (int i = 0; i < salesPerMonth.length; i++) {
+			series.put(Integer.toString(today.getYear() - i), Arrays.asList(salesPerMonth[i]));
+		}
+		return new DashboardChartData("Sales last years", MONTH_LABELS, series);
+	}
+
+	public static DashboardChartData getProductSplitChartData(Map<Product, Integer> productDeliveries,
+			LocalDate today) {
+		String[] products = productDeliveries.keySet().stream().map(Product::getName).toArray(String[]::new);
+		return new DashboardChartData("Products delivered in " + FormattingUtils.getFullMonthName(today), products,
+				Map.of("Deliveries", new ArrayList<>(productDeliveries.values())));
 	}
 
 	private static final String NEW_ORDERS_COUNT_SUBTITLE_PATTERN = "Last %d%s ago";
 
-	private static String createSubtitle(Order lastOrder) {
+	private static String createSubtitle(LocalDateTime timestamp) {
+		if (timestamp == null) {
+			return null;
+		}
 		LocalDateTime currTime = LocalDateTime.now();
-		LocalDateTime timestamp = lastOrder.getHistory().get(0).getTimestamp();
 
 		long value = timestamp.until(currTime, ChronoUnit.DAYS);
 		if (value > 0) {
@@ -1,21 +1,21 @@
 package com.vaadin.starter.bakery.ui.views.dashboard;
 
-import java.time.LocalDate;
-import java.time.MonthDay;
-import java.time.Year;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
 
 import jakarta.annotation.security.PermitAll;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.ComponentEventListener;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.Tag;
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.charts.Chart;
 import com.vaadin.flow.component.charts.events.ChartLoadEvent;
 import com.vaadin.flow.component.charts.model.Background;
@@ -34,17 +34,17 @@ import com.vaadin.flow.component.littemplate.LitTemplate;
 import com.vaadin.flow.component.template.Id;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
-import com.vaadin.starter.bakery.backend.data.DashboardData;
-import com.vaadin.starter.bakery.backend.data.DeliveryStats;
-import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
-import com.vaadin.starter.bakery.backend.data.entity.Product;
-import com.vaadin.starter.bakery.backend.service.OrderService;
+import com.vaadin.flow.server.Command;
+import com.vaadin.flow.shared.Registration;
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 import com.vaadin.starter.bakery.ui.MainView;
+import com.vaadin.starter.bakery.ui.dataproviders.OrderChangeBus;
 import com.vaadin.starter.bakery.ui.dataproviders.OrdersGridDataProvider;
 import com.vaadin.starter.bakery.ui.utils.BakeryConst;
-import com.vaadin.starter.bakery.ui.utils.FormattingUtils;
 import com.vaadin.starter.bakery.ui.views.storefront.OrderCard;
+import com.vaadin.starter.bakery.ui.views.storefront.OrderCardCache;
+import com.vaadin.starter.bakery.ui.views.storefront.OrderPrefetcher;
 import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountDataWithChart;
 
 @Tag("dashboard-view")
@@ -52,12 +52,7 @@ import com.vaadin.starter.bakery.ui.views.storefront.beans.OrdersCountDataWithCh
 @Route(value = BakeryConst.PAGE_DASHBOARD, layout = MainView.class)
 @PageTitle(BakeryConst.TITLE_DASHBOARD)
 @PermitAll
-public class DashboardView extends LitTemplate {
-
-	private static final String[] MONTH_LABELS = new String[] {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul",
-			"Aug", "Sep", "Oct", "Nov", "Dec"};
-
-	private final OrderService orderService;
+public class DashboardView extends LitTemplate implements HasLogger {
 
 	@Id("todayCount")
 	private DashboardCounterLabel todayCount;
@@ -81,7 +76,7 @@ public class DashboardView extends LitTemplate {
 	private Chart yearlySalesGraph;
 
 	@Id("ordersGrid")
-	private Grid<Order> grid;
+	private Grid<OrderCardData> grid;
 
 	@Id("monthlyProductSplit")
 	private Chart monthlyProductSplit;
@@ -89,28 +84,131 @@ public class DashboardView extends LitTemplate {
 	@Id("todayCountChart")
 	private Chart todayCountChart;
 
-	@Autowired
-	public DashboardView(OrderService orderService, OrdersGridDataProvider orderDataProvider) {
-		this.orderService = orderService;
+	private final OrdersGridDataProvider orderDataProvider;
+
+	private final OrderChangeBus orderChangeBus;
+
+	private Registration orderChanges;
 
+	@Autowired
+	public DashboardView(DashboardSnapshotService snapshotService, OrdersGridDataProvider orderDataProvider,
+			OrderCardCache orderCards, OrderPrefetcher prefetcher, OrderChangeBus orderChangeBus) {
+		this.orderDataProvider = orderDataProvider;
+		this.orderChangeBus = orderChangeBus;
 		grid.addColumn(OrderCard.getTemplate()
-				.withProperty("orderCard", OrderCard::create)
+				.withProperty("orderCard", orderCards::get)
 				.withProperty("header", order -> null)
-				.withFunction("cardClick",
-						order -> UI.getCurrent().navigate(BakeryConst.PAGE_STOREFRONT + "/" + order.getId())));
+				.withFunction("cardHover", prefetcher::prefetch)
+				.withFunction("cardClick", order -> {
+					prefetcher.select(order);
+					UI.getCurrent().navigate(BakeryConst.PAGE_STOREFRONT + "/" + order.getId());
+				}));
 
 		grid.setSelectionMode(Grid.SelectionMode.NONE);
 		grid.setDataProvider(orderDataProvider);
 
-		DashboardData data = orderService.getDashboardData(MonthDay.now().getMonthValue(), Year.now().getValue());
-		populateYearlySalesChart(data);
-		populateDeliveriesCharts(data);
-		populateOrdersCounts(data.getDeliveryStats());
-		initProductSplitMonthlyGraph(data.getProductDeliveries());
+		// Parts still being computed are pushed to the browser when ready
+		DashboardSnapshot snapshot = snapshotService.getSnapshot();
+		UI ui = UI.getCurrent();
+		show(ui, snapshot.getTodayCount(), data -> {
+			todayCount.setOrdersCountData(data);
+			initTodayCountSolidgaugeChart(data);
+			redraw(todayCountChart);
+		}, () -> todayCount.setUnavailable("Remaining Today"));
+		show(ui, snapshot.getNotAvailableCount(), notAvailableCount::setOrdersCountData,
+				() -> notAvailableCount.setUnavailable("Not Available"));
+		show(ui, snapshot.getNewCount(), newCount::setOrdersCountData, () -> newCount.setUnavailable("New"));
+		show(ui, snapshot.getTomorrowCount(), tomorrowCount::setOrdersCountData,
+				() -> tomorrowCount.setUnavailable("Tomorrow"));
+		show(ui, snapshot.getDeliveriesThisYear(), deliveries -> {
+			populateColumnChart(deliveriesThisYearChart, deliveries);
+			redraw(deliveriesThisYearChart);
+		}, () -> showUnavailable(deliveriesThisYearChart));
+		show(ui, snapshot.getDeliveriesThisMonth(), deliveries -> {
+			populateColumnChart(deliveriesThisMonthChart, deliveries);
+			redraw(deliveriesThisMonthChart);
+		}, () -> showUnavailable(deliveriesThisMonthChart));
+		show(ui, snapshot.getSalesPerMonth(), sales -> {
+			populateYearlySalesChart(sales);
+			redraw(yearlySalesGraph);
+		}, () -> showUnavailable(yearlySalesGraph));
+		show(ui, snapshot.getProductDeliveries(), productDeliveries -> {
+			initProductSplitMonthlyGraph(productDeliveries);
+			redraw(monthlyProductSplit);
+		}, () -> showUnavailable(monthlyProductSplit));
 
 		measurePageLoadPerformance();
 	}
 
+	@Override
+	protected void onAttach(AttachEvent attachEvent) {
+		super.onAttach(attachEvent);
+		// Orders changed by other users are pushed to the grid
+		orderChanges = orderChangeBus.register(attachEvent.getUI(),
+				changes -> orderDataProvider.ordersChanged(changes, OrdersGridDataProvider.fetchedBy(grid)));
+	}
+
+	@Override
+	protected void onDetach(DetachEvent detachEvent) {
+		super.onDetach(detachEvent);
+		orderChanges.remove();
+	}
+
+	private <T> void show(UI ui, CompletableFuture<T> part, Consumer<T> consumer, Runnable failed) {
+		show(ui::access, part, consumer, error -> {
+			getLogger().warn("Could not load a dashboard part", error);
+			failed.run();
+		});
+	}
+
+	/**
+	 * Shows the part when it completes, or calls <code>failed</code> if it
+	 * fails, through the given access. A part that is already done is shown
+	 * right away, as the view is built with the session locked.
+	 */
+	static <T> void show(Consumer<Command> access, CompletableFuture<T> part, Consumer<T> consumer,
+			Consumer<Throwable> failed) {
+		if (part.isDone()) {
+			show(part, consumer, failed);
+			return;
+		}
+		part.whenComplete((value, error) -> {
+			try {
+				access.accept(() -> show(part, consumer, failed));
+			} catch (UIDetachedException e) {
+				// The view was closed while loading
+			}
+		});
+	}
+
+	private static <T> void show(CompletableFuture<T> part, Consumer<T> consumer, Consumer<Throwable> failed) {
+		T value;
+		try {
+			value = part.join();
+		} catch (CompletionException e) {
+			failed.accept(e.getCause());
+			return;
+		} catch (CancellationException e) {
+			failed.accept(e);
+			return;
+		}
+		consumer.accept(value);
+	}
+
+	private void showUnavailable(Chart chart) {
+		Configuration conf = chart.getConfiguration();
+		conf.getChart().setStyledMode(true);
+		conf.setTitle("Could not be loaded");
+		redraw(chart);
+	}
+
+	private void redraw(Chart chart) {
+		// Charts configured before being attached are drawn on attach
+		if (chart.isAttached()) {
+			chart.drawChart();
+		}
+	}
+
 	// This method is overridden to measure the page load performance and can be safely removed
 	// if there is no need for that.
 	private void measurePageLoadPerformance() {
@@ -130,17 +228,20 @@ public class DashboardView extends LitTemplate {
 		monthlyProductSplit.addChartLoadListener(chartLoadListener);
 	}
 
-	private void initProductSplitMonthlyGraph(Map<Product, Integer> productDeliveries) {
-
-		LocalDate today = LocalDate.now();
-
+	private void initProductSplitMonthlyGraph(DashboardChartData productDeliveries) {
 		Configuration conf = monthlyProductSplit.getConfiguration();
 		conf.getChart().setType(ChartType.PIE);
 		conf.getChart().setBorderRadius(4);
 		conf.getChart().setStyledMode(true);
-		conf.setTitle("Products delivered in " + FormattingUtils.getFullMonthName(today));
-		DataSeries deliveriesPerProductSeries = new DataSeries(productDeliveries.entrySet().stream()
-				.map(e -> new DataSeriesItem(e.getKey().getName(), e.getValue())).collect(Collectors.toList()));
+		conf.setTitle(productDeliveries.getTitle());
+		String[] products = productDeliveries.getCategories();
+		DataSeries deliveriesPerProductSeries = new DataSeries();
+		productDeliveries.getSeries().forEach((name, deliveries) -> {
+			deliveriesPerProductSeries.setName(name);
+			for (int i = 0; i < products.length; i++) {
+				deliveriesPerProductSeries.add(new DataSeriesItem(products[i], deliveries.get(i)));
+			}
+		});
 		PlotOptionsPie plotOptionsPie = new PlotOptionsPie();
 		plotOptionsPie.setInnerSize("60%");
 		plotOptionsPie.getDataLabels().setCrop(false);
@@ -148,19 +249,6 @@ public class DashboardView extends LitTemplate {
 		conf.addSeries(deliveriesPerProductSeries);
 	}
 
-	private void populateOrdersCounts(DeliveryStats deliveryStats) {
-		List<OrderSummary> orders = orderService.findAnyMatchingStartingToday();
-
-		OrdersCountDataWithChart todaysOrdersCountData = DashboardUtils
-				.getTodaysOrdersCountData(deliveryStats, orders.iterator());
-		todayCount.setOrdersCountData(todaysOrdersCountData);
-		initTodayCountSolidgaugeChart(todaysOrdersCountData);
-		notAvailableCount.setOrdersCountData(DashboardUtils.getNotAvailableOrdersCountData(deliveryStats));
-		Order lastOrder = orderService.load(orders.get(orders.size() - 1).getId());
-		newCount.setOrdersCountData(DashboardUtils.getNewOrdersCountData(deliveryStats, lastOrder));
-		tomorrowCount.setOrdersCountData(DashboardUtils.getTomorrowOrdersCountData(deliveryStats, orders.iterator()));
-	}
-
 
 	private void initTodayCountSolidgaugeChart(OrdersCountDataWithChart data) {
 		Configuration configuration = todayCountChart.getConfiguration();
@@ -194,29 +282,17 @@ public class DashboardView extends LitTemplate {
 		pane.setBackground(background);
 	}
 
-	private void populateDeliveriesCharts(DashboardData data) {
-		LocalDate today = LocalDate.now();
-
-		// init the 'Deliveries in [this year]' chart
-		Configuration yearConf = deliveriesThisYearChart.getConfiguration();
-		configureColumnChart(yearConf);
+	private void populateColumnChart(Chart chart, DashboardChartData deliveries) {
+		Configuration conf = chart.getConfiguration();
+		configureColumnChart(conf);
 
-		yearConf.setTitle("Deliveries in " + today.getYear());
-		yearConf.getxAxis().setCategories(MONTH_LABELS);
-		yearConf.addSeries(new ListSeries("per Month", data.getDeliveriesThisYear()));
-		yearConf.getChart().setStyledMode(true);
-
-		// init the 'Deliveries in [this month]' chart
-		Configuration monthConf = deliveriesThisMonthChart.getConfiguration();
-		configureColumnChart(monthConf);
-
-		List<Number> deliveriesThisMonth = data.getDeliveriesThisMonth();
-		String[] deliveriesThisMonthCategories = IntStream.rangeClosed(1, deliveriesThisMonth.size())
-				.mapToObj(String::valueOf).toArray(String[]::new);
+		conf.setTitle(deliveries.getTitle());
+		conf.getxAxis().setCategories(deliveries.getCategories());
+		addSeries(conf, deliveries);
+	}
 
-		monthConf.setTitle("Deliveries in " + FormattingUtils.getFullMonthName(today));
-		monthConf.getxAxis().setCategories(deliveriesThisMonthCategories);
-		monthConf.addSeries(new ListSeries("per Day", deliveriesThisMonth));
+	private void addSeries(Configuration conf, DashboardChartData data) {
+		data.getSeries().forEach((name, values) -> conf.addSeries(new ListSeries(name, values)));
 	}
 
 	private void configureColumnChart(Configuration conf) {
@@ -233,22 +309,19 @@ public class DashboardView extends LitTemplate {
 		conf.getLegend().setEnabled(false);
 	}
 
-	private void populateYearlySalesChart(DashboardData data) {
+	private void populateYearlySalesChart(DashboardChartData salesPerMonth) {
 		Configuration conf = yearlySalesGraph.getConfiguration();
 		conf.getChart().setType(ChartType.AREASPLINE);
 		conf.getChart().setBorderRadius(4);
 		conf.getChart().setStyledMode(true);
 
-		conf.setTitle("Sales last years");
+		conf.setTitle(salesPerMonth.getTitle());
 
 		conf.getxAxis().setVisible(false);
-		conf.getxAxis().setCategories(MONTH_LABELS);
+		conf.getxAxis().setCategories(salesPerMonth.getCategories());
 
 		conf.getyAxis().getTitle().setText(null);
 
-		int year = Year.now().getValue();
-		for (int i = 0; i < 3; i++) {
-			conf.addSeries(new ListSeries(Integer.toString(year - i), data.getSalesPerMonth(i)));
-		}
+		addSeries(conf, salesPerMonth);
 	}
 }
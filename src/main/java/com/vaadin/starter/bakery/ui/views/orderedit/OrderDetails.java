@@ -19,7 +19,7 @@ import com.vaadin.flow.dom.Element;
 import com.vaadin.flow.shared.Registration;
 import com.vaadin.starter.bakery.backend.data.entity.HistoryItem;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.data.entity.OrderItem;
 import com.vaadin.starter.bakery.ui.events.CancelEvent;
 import com.vaadin.starter.bakery.ui.events.SaveEvent;
 import com.vaadin.starter.bakery.ui.utils.converters.CurrencyFormatter;
@@ -97,8 +97,8 @@ public class OrderDetails extends LitTemplate {
 		JsonArray orderItems = item.getArray("items");
 		for (int i = 0; i < orderItems.length(); i++) {
 			JsonObject itemProduct = orderItems.getObject(i).getObject("product");
-			Product product = order.getItems().get(i).getProduct();
-			itemProduct.put("formattedPrice", new CurrencyFormatter().encode(product.getPrice()));
+			OrderItem orderItem = order.getItems().get(i);
+			itemProduct.put("formattedPrice", new CurrencyFormatter().encode(orderItem.getUnitPrice()));
 		}
 
 		JsonArray orderHistory = item.getArray("history");
@@ -10,6 +10,7 @@ import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 
@@ -103,10 +104,11 @@ public class OrderEditor extends LitTemplate {
 	private final LocalTimeConverter localTimeConverter = new LocalTimeConverter();
 
 	@Autowired
-	public OrderEditor(PickupLocationService locationService, ProductService productService) {
+	public OrderEditor(PickupLocationService locationService, ProductService productService,
+			@Value("${bakery.order-editor.grid-threshold:50}") int gridThreshold) {
 		DataProvider<PickupLocation, String> locationDataProvider = new CrudEntityDataProvider<>(locationService);
 		DataProvider<Product, String> productDataProvider = new CrudEntityDataProvider<>(productService);
-		itemsEditor = new OrderItemsEditor(productDataProvider);
+		itemsEditor = new OrderItemsEditor(productDataProvider, gridThreshold);
 
 		itemsContainer.add(itemsEditor);
 
@@ -207,7 +209,7 @@ public class OrderEditor extends LitTemplate {
 	}
 
 	private void setTotalPrice(int totalPrice) {
-		getElement().getProperty("totalPrice", FormattingUtils.formatAsCurrency(totalPrice));
+		getElement().setProperty("totalPrice", FormattingUtils.formatAsCurrency(totalPrice));
 	}
 
 	public void setCurrentUser(User currentUser) {
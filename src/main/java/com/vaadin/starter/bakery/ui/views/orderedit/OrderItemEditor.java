@@ -80,7 +80,11 @@ public class OrderItemEditor extends LitTemplate implements HasValueAndElement<C
 		Product product = products.getValue();
 		totalPrice = 0;
 		if (selectedAmount != null && product != null) {
-			totalPrice = selectedAmount * product.getPrice();
+			// Orders keep the price their products were booked at
+			OrderItem item = getValue();
+			boolean booked = item != null && item.getProduct() != null
+					&& item.getProduct().getId().equals(product.getId());
+			totalPrice = selectedAmount * (booked ? item.getUnitPrice() : product.getPrice());
 		}
 		price.setText(FormattingUtils.formatAsCurrency(totalPrice));
 		if (oldValue != totalPrice) {
@@ -99,6 +103,13 @@ public class OrderItemEditor extends LitTemplate implements HasValueAndElement<C
 		setPrice();
 	}
 
+	/**
+	 * @return the price of the item as currently shown
+	 */
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+
 	@Override
 	public OrderItem getValue() {
 		return fieldSupport.getValue();
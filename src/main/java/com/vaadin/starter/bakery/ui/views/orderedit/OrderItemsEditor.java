@@ -22,16 +22,27 @@ public class OrderItemsEditor extends Div implements HasValueAndElement<Componen
 
 	private OrderItemEditor empty;
 
+	// Shows the lines instead of one editor per line for large orders
+	private OrderItemsGrid grid;
+
 	private DataProvider<Product, String> productDataProvider;
 
+	private final int gridThreshold;
+
 	private int totalPrice = 0;
 
 	private boolean hasChanges = false;
 
 	private final AbstractFieldSupport<OrderItemsEditor,List<OrderItem>> fieldSupport;
 	
-	public OrderItemsEditor(DataProvider<Product, String> productDataProvider) {
+	/**
+	 * @param gridThreshold
+	 *            the number of lines above which an order is edited in a
+	 *            grid, decided when the value is set
+	 */
+	public OrderItemsEditor(DataProvider<Product, String> productDataProvider, int gridThreshold) {
 		this.productDataProvider = productDataProvider;
+		this.gridThreshold = gridThreshold;
 		this.fieldSupport = new AbstractFieldSupport<>(this, Collections.emptyList(),
 				Objects::equals, c ->  {}); 
 	}
@@ -42,17 +53,37 @@ public class OrderItemsEditor extends Div implements HasValueAndElement<Componen
 		removeAll();
 		totalPrice = 0;
 		hasChanges = false;
-
-		if (items != null) {
+		grid = null;
+
+		if (items != null && items.size() > gridThreshold) {
+			grid = new OrderItemsGrid(items, productDataProvider, this::updateTotalPriceOnItemPriceChange,
+					() -> setHasChanges(true), item -> itemRemoved(item, item.getTotalPrice()));
+			add(grid);
+			totalPrice = items.stream().mapToInt(OrderItem::getTotalPrice).sum();
+		} else if (items != null) {
 			items.forEach(this::createEditor);
 		}
 		createEmptyElement();
 		setHasChanges(false);
+		fireEvent(new TotalPriceChangeEvent(this, totalPrice));
+	}
+
+	/**
+	 * Updates the value after items have been added or removed in the
+	 * editor, the child editors are left as they are.
+	 */
+	private void updateValue(List<OrderItem> items) {
+		fieldSupport.setValue(items);
+		setHasChanges(true);
 	}
 
 	private OrderItemEditor createEditor(OrderItem value) {
 		OrderItemEditor editor = new OrderItemEditor(productDataProvider);
 		getElement().appendChild(editor.getElement());
+		editor.setValue(value);
+		// Counted directly, the listeners only follow later changes
+		totalPrice += editor.getTotalPrice();
+
 		editor.addPriceChangeListener(e -> updateTotalPriceOnItemPriceChange(e.getOldValue(), e.getNewValue()));
 		editor.addProductChangeListener(e -> productChanged(e.getSource(), e.getProduct()));
 		editor.addCommentChangeListener(e -> setHasChanges(true));
@@ -60,21 +91,25 @@ public class OrderItemsEditor extends Div implements HasValueAndElement<Componen
 			OrderItemEditor orderItemEditor = e.getSource();
 			if (orderItemEditor != empty) {
 				remove(orderItemEditor);
-				OrderItem orderItem = orderItemEditor.getValue();
-				setValue(getValue().stream().filter(element -> element != orderItem).collect(Collectors.toList()));
-				updateTotalPriceOnItemPriceChange(orderItem.getTotalPrice(), 0);
-				setHasChanges(true);
+				itemRemoved(orderItemEditor.getValue(), orderItemEditor.getTotalPrice());
 			}
 		});
-
-		editor.setValue(value);
 		return editor;
 	}
 
+	private void itemRemoved(OrderItem orderItem, int price) {
+		updateValue(getValue().stream().filter(element -> element != orderItem).collect(Collectors.toList()));
+		updateTotalPriceOnItemPriceChange(price, 0);
+	}
+
 	@Override
 	public void setReadOnly(boolean readOnly) {
 		HasValueAndElement.super.setReadOnly(readOnly);
-		getChildren().forEach(e -> ((OrderItemEditor) e).setReadOnly(readOnly));
+		getChildren().filter(OrderItemEditor.class::isInstance)
+				.forEach(e -> ((OrderItemEditor) e).setReadOnly(readOnly));
+		if (grid != null) {
+			grid.setReadOnly(readOnly);
+		}
 	}
 
 	@Override
@@ -85,11 +120,19 @@ public class OrderItemsEditor extends Div implements HasValueAndElement<Componen
 	private void productChanged(OrderItemEditor item, Product product) {
 		setHasChanges(true);
 		if (empty == item) {
-			createEmptyElement();
 			OrderItem orderItem = new OrderItem();
 			orderItem.setProduct(product);
-			item.setValue(orderItem);
-			setValue(Stream.concat(getValue().stream(),Stream.of(orderItem)).collect(Collectors.toList()));
+			if (grid != null) {
+				// Counts the price of the new line before moving it to the grid
+				item.setValue(orderItem);
+				remove(item);
+				createEmptyElement();
+				grid.addItem(orderItem);
+			} else {
+				createEmptyElement();
+				item.setValue(orderItem);
+			}
+			updateValue(Stream.concat(getValue().stream(), Stream.of(orderItem)).collect(Collectors.toList()));
 		}
 	}
 
@@ -120,6 +163,9 @@ public class OrderItemsEditor extends Div implements HasValueAndElement<Componen
 	}
 
 	public Stream<HasValue<?, ?>> validate() {
+		if (grid != null) {
+			return grid.validate();
+		}
 		return getChildren()
 				.filter(component -> fieldSupport.getValue().size() == 0 || !component.equals(empty))
 				.map(editor -> ((OrderItemEditor) editor).validate()).flatMap(stream -> stream);
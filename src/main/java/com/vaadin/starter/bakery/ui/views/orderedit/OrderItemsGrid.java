@@ -0,0 +1,166 @@
+package com.vaadin.starter.bakery.ui.views.orderedit;
+
+import static com.vaadin.flow.i18n.I18NProvider.translate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+import com.vaadin.flow.component.HasValue;
+import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.editor.Editor;
+import com.vaadin.flow.component.textfield.IntegerField;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.binder.BeanValidationBinder;
+import com.vaadin.flow.data.binder.BindingValidationStatus;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.renderer.LitRenderer;
+import com.vaadin.starter.bakery.backend.data.entity.OrderItem;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.ui.utils.FormattingUtils;
+
+/**
+ * The lines of a large order in a grid, used by {@link OrderItemsEditor}
+ * instead of one {@link OrderItemEditor} per line. Only the rows in view are
+ * sent to the browser, and a single set of fields edits the clicked row.
+ */
+class OrderItemsGrid extends Grid<OrderItem> {
+
+	private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+	private final List<OrderItem> items;
+
+	private final BeanValidationBinder<OrderItem> binder = new BeanValidationBinder<>(OrderItem.class);
+
+	private final Column<OrderItem> deleteColumn;
+
+	private int editedPrice;
+
+	private boolean readOnly;
+
+	/**
+	 * @param priceChanged
+	 *            called with the old and new price of an edited line
+	 * @param removed
+	 *            called after a line has been removed
+	 */
+	OrderItemsGrid(List<OrderItem> items, DataProvider<Product, String> productDataProvider,
+			BiConsumer<Integer, Integer> priceChanged, Runnable changed, Consumer<OrderItem> removed) {
+		this.items = new ArrayList<>(items);
+		setItems(this.items);
+		setHeight("50vh");
+
+		ComboBox<Product> products = new ComboBox<>();
+		products.setItems(productDataProvider);
+		products.setItemLabelGenerator(Product::getName);
+		products.setRequired(true);
+		products.setWidthFull();
+		IntegerField amount = new IntegerField();
+		amount.setMin(1);
+		amount.setStepButtonsVisible(true);
+		amount.setRequiredIndicatorVisible(true);
+		amount.setWidthFull();
+		TextField comment = new TextField();
+		comment.setWidthFull();
+
+		binder.forField(products).bind("product");
+		binder.forField(amount).bind("quantity");
+		binder.forField(comment).bind("comment");
+
+		addColumn(item -> item.getProduct() == null ? "" : item.getProduct().getName())
+				.setHeader(translate("product")).setEditorComponent(products).setFlexGrow(3);
+		addColumn(OrderItem::getQuantity).setHeader(translate("quantity")).setEditorComponent(amount);
+		addColumn(item -> FormattingUtils.formatAsCurrency(item.getTotalPrice())).setHeader(translate("price"));
+		addColumn(OrderItem::getComment).setHeader(translate("comment")).setEditorComponent(comment)
+				.setFlexGrow(3);
+		deleteColumn = addColumn(LitRenderer.<OrderItem> of(
+				"<vaadin-button theme='icon tertiary' @click='${remove}'>"
+						+ "<vaadin-icon icon='vaadin:close-small'></vaadin-icon></vaadin-button>")
+				.withFunction("remove", item -> remove(item, removed))).setFlexGrow(0).setWidth("4em");
+
+		Editor<OrderItem> editor = getEditor();
+		editor.setBinder(binder);
+		editor.setBuffered(false);
+		editor.addOpenListener(e -> editedPrice = e.getItem().getTotalPrice());
+		editor.addCloseListener(e -> getDataProvider().refreshItem(e.getItem()));
+		addItemClickListener(e -> {
+			if (!readOnly && e.getItem() != editor.getItem()) {
+				editor.editItem(e.getItem());
+			}
+		});
+		// The binder has written the field to the edited line
+		binder.addValueChangeListener(e -> {
+			int price = editor.getItem().getTotalPrice();
+			if (price != editedPrice) {
+				priceChanged.accept(editedPrice, price);
+				editedPrice = price;
+			}
+			changed.run();
+		});
+	}
+
+	void addItem(OrderItem item) {
+		items.add(item);
+		getDataProvider().refreshAll();
+		scrollToEnd();
+		if (!readOnly) {
+			getEditor().editItem(item);
+		}
+	}
+
+	private void remove(OrderItem item, Consumer<OrderItem> removed) {
+		if (readOnly) {
+			return;
+		}
+		if (getEditor().getItem() == item) {
+			getEditor().cancel();
+		}
+		items.remove(item);
+		getDataProvider().refreshAll();
+		removed.accept(item);
+	}
+
+	void setReadOnly(boolean readOnly) {
+		this.readOnly = readOnly;
+		if (readOnly && getEditor().isOpen()) {
+			getEditor().cancel();
+		}
+		deleteColumn.setVisible(!readOnly);
+	}
+
+	/**
+	 * Opens the first invalid line in the editor. A field of the edited line
+	 * holding an invalid value comes first, the value has not been written to
+	 * the line.
+	 *
+	 * @return the invalid fields of that line, none if all lines are valid
+	 */
+	Stream<HasValue<?, ?>> validate() {
+		if (getEditor().isOpen()) {
+			List<HasValue<?, ?>> invalid = invalidFields();
+			if (!invalid.isEmpty()) {
+				return invalid.stream();
+			}
+		}
+		for (int i = 0; i < items.size(); i++) {
+			OrderItem item = items.get(i);
+			if (!VALIDATOR.validate(item).isEmpty()) {
+				scrollToIndex(i);
+				getEditor().editItem(item);
+				return invalidFields().stream();
+			}
+		}
+		return Stream.empty();
+	}
+
+	private List<HasValue<?, ?>> invalidFields() {
+		return binder.validate().getFieldValidationErrors().stream()
+				.<HasValue<?, ?>> map(BindingValidationStatus::getField).toList();
+	}
+}
@@ -8,11 +8,10 @@ import static com.vaadin.starter.bakery.ui.utils.FormattingUtils.WEEK_OF_YEAR_FI
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 
 import com.vaadin.flow.data.renderer.LitRenderer;
-import com.vaadin.starter.bakery.backend.data.entity.Order;
-import com.vaadin.starter.bakery.backend.data.entity.OrderItem;
-import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 
 /**
  * Help class to get ready to use LitRenderer for displaying order card list on the Storefront and Dashboard grids.
@@ -22,67 +21,87 @@ import com.vaadin.starter.bakery.backend.data.entity.OrderSummary;
  * to visually separate orders into groups. Technically all order cards are
  * equivalent, but those that do have the header visible create a visual group
  * separation.
+ * <p>
+ * A card only holds the strings shown by the template, formatted once for the
+ * day it was created on, and is shared through the {@link OrderCardCache}.
  */
 public class OrderCard {
 
-	public static LitRenderer<Order> getTemplate() {
+	public static LitRenderer<OrderCardData> getTemplate() {
 		return LitRenderer.of(
 				  "<order-card"
 				+ "  .header='${item.header}'"
 				+ "  .orderCard='${item.orderCard}'"
-				+ "  @card-click='${cardClick}'>"
+				+ "  @card-click='${cardClick}'"
+				+ "  @card-hover='${cardHover}'>"
 				+ "</order-card>");
 	}
-	
-	public static OrderCard create(OrderSummary order) {
-		return new OrderCard(order);
-	}
 
-	private boolean recent, inWeek;
+	private final OrderCardData order;
+
+	private final String place, time, shortDay, secondaryTime, month, fullDay, state;
 
-	private final OrderSummary order;
-	
-	public OrderCard(OrderSummary order) {
+	public OrderCard(OrderCardData order, LocalDate today) {
 		this.order = order;
-		LocalDate now = LocalDate.now();
 		LocalDate date = order.getDueDate();
-		recent = date.equals(now) || date.equals(now.minusDays(1));
-		inWeek = !recent && now.getYear() == date.getYear() && now.get(WEEK_OF_YEAR_FIELD) == date.get(WEEK_OF_YEAR_FIELD);
+		boolean recent = date.equals(today) || date.equals(today.minusDays(1));
+		boolean inWeek = !recent && today.getYear() == date.getYear()
+				&& today.get(WEEK_OF_YEAR_FIELD) == date.get(WEEK_OF_YEAR_FIELD);
+		place = recent || inWeek ? order.getPickupLocationName() : null;
+		time = recent ? HOUR_FORMATTER.format(order.getDueTime()) : null;
+		shortDay = inWeek ? SHORT_DAY_FORMATTER.format(date) : null;
+		secondaryTime = inWeek ? HOUR_FORMATTER.format(order.getDueTime()) : null;
+		month = recent || inWeek ? null : MONTH_AND_DAY_FORMATTER.format(date);
+		fullDay = recent || inWeek ? null : WEEKDAY_FULLNAME_FORMATTER.format(date);
+		state = order.getState().toString();
+	}
+
+	/**
+	 * Checks whether the card shows the given order data. Changes to the
+	 * customer or to the quantity of an item do not always change the version
+	 * of the order.
+	 */
+	boolean isFor(OrderCardData data) {
+		return data == order || Objects.equals(data.getDueDate(), order.getDueDate())
+				&& Objects.equals(data.getDueTime(), order.getDueTime()) && data.getState() == order.getState()
+				&& Objects.equals(data.getCustomerName(), order.getCustomerName())
+				&& Objects.equals(data.getPickupLocationName(), order.getPickupLocationName())
+				&& data.getItems().equals(order.getItems());
 	}
 
 	public String getPlace() {
-		return recent || inWeek ? order.getPickupLocation().getName() : null;
+		return place;
 	}
 
 	public String getTime() {
-		return recent ? HOUR_FORMATTER.format(order.getDueTime()) : null;
+		return time;
 	}
 
 	public String getShortDay() {
-		return inWeek ? SHORT_DAY_FORMATTER.format(order.getDueDate()) : null;
+		return shortDay;
 	}
 
 	public String getSecondaryTime() {
-		return inWeek ? HOUR_FORMATTER.format(order.getDueTime()) : null;
+		return secondaryTime;
 	}
 
 	public String getMonth() {
-		return recent || inWeek ? null : MONTH_AND_DAY_FORMATTER.format(order.getDueDate());
+		return month;
 	}
 
 	public String getFullDay() {
-		return recent || inWeek ? null : WEEKDAY_FULLNAME_FORMATTER.format(order.getDueDate());
+		return fullDay;
 	}
 
 	public String getState() {
-		return order.getState().toString();
+		return state;
 	}
 
 	public String getFullName() {
-		return order.getCustomer().getFullName();
+		return order.getCustomerName();
 	}
 
-	public List<OrderItem> getItems() {
+	public List<OrderCardData.Item> getItems() {
 		return order.getItems();
 	}
 }
@@ -0,0 +1,44 @@
+package com.vaadin.starter.bakery.ui.views.storefront;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+
+/**
+ * Order cards shared by all UIs, so that the dates of a card are formatted
+ * once per version of the order and day rather than every time a grid row is
+ * rendered.
+ */
+@SpringComponent
+public class OrderCardCache {
+
+	private record Key(Long orderId, int version, LocalDate day) {
+	}
+
+	private final Cache<Key, OrderCard> cards;
+
+	@Autowired
+	public OrderCardCache(@Value("${bakery.order-cards.max-size:10000}") long maxSize) {
+		cards = Caffeine.newBuilder().maximumSize(maxSize).build();
+	}
+
+	public OrderCard get(OrderCardData order) {
+		LocalDate today = LocalDate.now();
+		if (order.getId() == null) {
+			return new OrderCard(order, today);
+		}
+		Key key = new Key(order.getId(), order.getVersion(), today);
+		OrderCard card = cards.getIfPresent(key);
+		if (card == null || !card.isFor(order)) {
+			card = new OrderCard(order, today);
+			cards.put(key, card);
+		}
+		return card;
+	}
+}
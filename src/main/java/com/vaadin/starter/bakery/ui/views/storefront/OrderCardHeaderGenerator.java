@@ -3,39 +3,34 @@ package com.vaadin.starter.bakery.ui.views.storefront;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import com.vaadin.starter.bakery.backend.data.entity.Order;
 import com.vaadin.starter.bakery.ui.views.storefront.beans.OrderCardHeader;
 
+/**
+ * Headers of the order cards starting a group of the Storefront grid. The
+ * first order of each group is looked up when the filter changes, so the
+ * headers do not depend on the order in which the grid fetches its pages.
+ */
 public class OrderCardHeaderGenerator {
 
-	private class HeaderWrapper {
-		private Predicate<LocalDate> matcher;
+	private static class Group {
+		private final LocalDate start;
 
-		private OrderCardHeader header;
+		private final OrderCardHeader header;
 
-		private Long selected;
-
-		public HeaderWrapper(Predicate<LocalDate> matcher, OrderCardHeader header) {
-			this.matcher = matcher;
+		public Group(LocalDate start, OrderCardHeader header) {
+			this.start = start;
 			this.header = header;
 		}
 
-		public boolean matches(LocalDate date) {
-			return matcher.test(date);
-		}
-
-		public Long getSelected() {
-			return selected;
-		}
-
-		public void setSelected(Long selected) {
-			this.selected = selected;
+		public LocalDate getStart() {
+			return start;
 		}
 
 		public OrderCardHeader getHeader() {
@@ -43,34 +38,33 @@ public class OrderCardHeaderGenerator {
 		}
 	}
 
+	// Before the due date of any order
+	private static final LocalDate BEGINNING = LocalDate.of(1, 1, 1);
+
 	private final DateTimeFormatter HEADER_DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("EEE, MMM d");
 
-	private final Map<Long, OrderCardHeader> ordersWithHeaders = new HashMap<>();
-	private List<HeaderWrapper> headerChain = new ArrayList<>();
+	private Map<Long, OrderCardHeader> ordersWithHeaders = Collections.emptyMap();
 
 	private OrderCardHeader getRecentHeader() {
 		return new OrderCardHeader("Recent", "Before this week");
 	}
 
-	private OrderCardHeader getYesterdayHeader() {
-		LocalDate yesterday = LocalDate.now().minusDays(1);
+	private OrderCardHeader getYesterdayHeader(LocalDate today) {
+		LocalDate yesterday = today.minusDays(1);
 		return new OrderCardHeader("Yesterday", secondaryHeaderFor(yesterday));
 	}
 
-	private OrderCardHeader getTodayHeader() {
-		LocalDate today = LocalDate.now();
+	private OrderCardHeader getTodayHeader(LocalDate today) {
 		return new OrderCardHeader("Today", secondaryHeaderFor(today));
 	}
 
-	private OrderCardHeader getThisWeekBeforeYesterdayHeader() {
-		LocalDate today = LocalDate.now();
+	private OrderCardHeader getThisWeekBeforeYesterdayHeader(LocalDate today) {
 		LocalDate yesterday = today.minusDays(1);
 		LocalDate thisWeekStart = today.minusDays(today.getDayOfWeek().getValue() - 1);
 		return new OrderCardHeader("This week before yesterday", secondaryHeaderFor(thisWeekStart, yesterday));
 	}
 
-	private OrderCardHeader getThisWeekStartingTomorrow(boolean showPrevious) {
-		LocalDate today = LocalDate.now();
+	private OrderCardHeader getThisWeekStartingTomorrow(LocalDate today, boolean showPrevious) {
 		LocalDate tomorrow = today.plusDays(1);
 		LocalDate nextWeekStart = today.minusDays(today.getDayOfWeek().getValue()).plusWeeks(1);
 		return new OrderCardHeader(showPrevious ? "This week starting tomorrow" : "This week",
@@ -93,53 +87,56 @@ public class OrderCardHeaderGenerator {
 		return ordersWithHeaders.get(id);
 	}
 
-	public void resetHeaderChain(boolean showPrevious) {
-		this.headerChain = createHeaderChain(showPrevious);
-		ordersWithHeaders.clear();
+	/**
+	 * Replaces the headers with ones created by
+	 * {@link #createHeaders(boolean, Function)}.
+	 *
+	 * @return whether other orders start the groups now
+	 */
+	public boolean updateHeaders(Map<Long, OrderCardHeader> ordersWithHeaders) {
+		boolean moved = !ordersWithHeaders.keySet().equals(this.ordersWithHeaders.keySet());
+		this.ordersWithHeaders = ordersWithHeaders;
+		return moved;
 	}
 
-	public void ordersRead(List<Order> orders) {
-		Iterator<HeaderWrapper> headerIterator = headerChain.stream().filter(h -> h.getSelected() == null).iterator();
-		if (!headerIterator.hasNext()) {
-			return;
-		}
-
-		HeaderWrapper current = headerIterator.next();
-		for (Order order : orders) {
-			// If last selected, discard orders that match it.
-			if (current.getSelected() != null && current.matches(order.getDueDate())) {
-				continue;
-			}
-			while (current != null && !current.matches(order.getDueDate())) {
-				current = headerIterator.hasNext() ? headerIterator.next() : null;
-			}
-			if (current == null) {
-				break;
+	/**
+	 * Creates the headers by the id of the order they are shown above. Does not
+	 * change the current headers, so it can run outside of the UI thread.
+	 *
+	 * @param firstIds
+	 *            finds the id of the first order due on or after each of the
+	 *            given days, in the order of the grid, or <code>null</code>
+	 */
+	public Map<Long, OrderCardHeader> createHeaders(boolean showPrevious,
+			Function<List<LocalDate>, List<Long>> firstIds) {
+		List<Group> groups = createGroups(LocalDate.now(), showPrevious);
+		List<Long> ids = firstIds.apply(groups.stream().map(Group::getStart).collect(Collectors.toList()));
+		Map<Long, OrderCardHeader> headers = new HashMap<>();
+		for (int i = 0; i < groups.size(); i++) {
+			// The first order after an empty group belongs to a later one,
+			// whose header replaces the one put before
+			if (ids.get(i) != null) {
+				headers.put(ids.get(i), groups.get(i).getHeader());
 			}
-			current.setSelected(order.getId());
-			ordersWithHeaders.put(order.getId(), current.getHeader());
 		}
+		return headers;
 	}
 
-	private List<HeaderWrapper> createHeaderChain(boolean showPrevious) {
-		List<HeaderWrapper> headerChain = new ArrayList<>();
-		LocalDate today = LocalDate.now();
+	private List<Group> createGroups(LocalDate today, boolean showPrevious) {
+		List<Group> groups = new ArrayList<>();
+		// Week starting on Monday
 		LocalDate startOfTheWeek = today.minusDays(today.getDayOfWeek().getValue() - 1);
 		if (showPrevious) {
 			LocalDate yesterday = today.minusDays(1);
-			// Week starting on Monday
-			headerChain.add(new HeaderWrapper(d -> d.isBefore(startOfTheWeek), this.getRecentHeader()));
+			groups.add(new Group(BEGINNING, getRecentHeader()));
 			if (startOfTheWeek.isBefore(yesterday)) {
-				headerChain.add(new HeaderWrapper(d -> d.isBefore(yesterday) && !d.isAfter(startOfTheWeek),
-						this.getThisWeekBeforeYesterdayHeader()));
+				groups.add(new Group(startOfTheWeek, getThisWeekBeforeYesterdayHeader(today)));
 			}
-			headerChain.add(new HeaderWrapper(yesterday::equals, this.getYesterdayHeader()));
+			groups.add(new Group(yesterday, getYesterdayHeader(today)));
 		}
-		LocalDate firstDayOfTheNextWeek = startOfTheWeek.plusDays(7);
-		headerChain.add(new HeaderWrapper(today::equals, getTodayHeader()));
-		headerChain.add(new HeaderWrapper(d -> d.isAfter(today) && d.isBefore(firstDayOfTheNextWeek),
-				getThisWeekStartingTomorrow(showPrevious)));
-		headerChain.add(new HeaderWrapper(d -> !d.isBefore(firstDayOfTheNextWeek), getUpcomingHeader()));
-		return headerChain;
+		groups.add(new Group(today, getTodayHeader(today)));
+		groups.add(new Group(today.plusDays(1), getThisWeekStartingTomorrow(today, showPrevious)));
+		groups.add(new Group(startOfTheWeek.plusDays(7), getUpcomingHeader()));
+		return groups;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.vaadin.starter.bakery.ui.views.storefront;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vaadin.flow.spring.annotation.SpringComponent;
+import com.vaadin.flow.spring.annotation.VaadinSessionScope;
+import com.vaadin.starter.bakery.app.AsyncConfiguration;
+import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+
+/**
+ * Loads the full order of a card the user is about to open, while the pointer
+ * rests on it, so that the order dialog does not wait for the database.
+ * <p>
+ * A prefetched order is only used if it still has the version stored in the
+ * database, which is checked by a single column lookup, otherwise the order is
+ * loaded again.
+ */
+@SpringComponent
+@VaadinSessionScope
+public class OrderPrefetcher implements HasLogger {
+
+	private record Prefetch(int version, CompletableFuture<Order> order) {
+	}
+
+	private final OrderService orderService;
+
+	private final Executor executor;
+
+	private final Cache<Long, Prefetch> orders;
+
+	private Long selectedId;
+
+	@Autowired
+	public OrderPrefetcher(OrderService orderService,
+			@Qualifier(AsyncConfiguration.PREFETCH_EXECUTOR) Executor executor,
+			@Value("${bakery.prefetch.ttl:30s}") Duration timeToLive,
+			@Value("${bakery.prefetch.max-size:20}") long maxSize) {
+		this.orderService = orderService;
+		this.executor = executor;
+		orders = Caffeine.newBuilder().expireAfterWrite(timeToLive).maximumSize(maxSize).build();
+	}
+
+	/**
+	 * Starts loading the order of the card, unless it is already loaded or
+	 * being loaded at the version of the card.
+	 */
+	public void prefetch(OrderCardData card) {
+		Prefetch prefetch = orders.getIfPresent(card.getId());
+		if (prefetch != null && prefetch.version() == card.getVersion()
+				&& !prefetch.order().isCompletedExceptionally()) {
+			return;
+		}
+		Long id = card.getId();
+		orders.put(id, new Prefetch(card.getVersion(),
+				CompletableFuture.supplyAsync(() -> orderService.load(id), executor)));
+	}
+
+	/**
+	 * Remembers the card that is being opened, see {@link #take(Long)}.
+	 */
+	public synchronized void select(OrderCardData card) {
+		prefetch(card);
+		selectedId = card.getId();
+	}
+
+	/**
+	 * Returns the prefetched order if it is the one of the selected card and
+	 * has not changed since, waiting for it if it is still being loaded.
+	 */
+	public synchronized Optional<Order> take(Long id) {
+		Long selected = selectedId;
+		selectedId = null;
+		if (selected == null || !selected.equals(id)) {
+			return Optional.empty();
+		}
+		Prefetch prefetch = orders.asMap().remove(id);
+		if (prefetch == null) {
+			return Optional.empty();
+		}
+		try {
+			Order order = prefetch.order().join();
+			return orderService.findVersion(id).filter(version -> version == order.getVersion()).map(version -> order);
+		} catch (CompletionException e) {
+			// Loading again reports the error to the user
+			getLogger().debug("Prefetching order {} failed", id, e.getCause());
+			return Optional.empty();
+		}
+	}
+}
@@ -1,22 +1,30 @@
 package com.vaadin.starter.bakery.ui.views.storefront;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
+import org.springframework.data.domain.Slice;
 
 import com.vaadin.flow.component.Focusable;
 import com.vaadin.flow.component.HasValue;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.spring.annotation.SpringComponent;
 import com.vaadin.starter.bakery.app.security.CurrentUser;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
 import com.vaadin.starter.bakery.backend.service.OrderService;
+import com.vaadin.starter.bakery.ui.components.SearchPipeline;
 import com.vaadin.starter.bakery.ui.crud.EntityPresenter;
+import com.vaadin.starter.bakery.ui.dataproviders.OrderChangeBus.OrderChanges;
 import com.vaadin.starter.bakery.ui.dataproviders.OrdersGridDataProvider;
 import com.vaadin.starter.bakery.ui.dataproviders.OrdersGridDataProvider.OrderFilter;
+import com.vaadin.starter.bakery.ui.views.orderedit.OrderDetails;
+import com.vaadin.starter.bakery.ui.views.orderedit.OrderEditor;
 import com.vaadin.starter.bakery.ui.views.storefront.beans.OrderCardHeader;
 
 import static com.vaadin.starter.bakery.ui.utils.BakeryConst.PAGE_STOREFRONT_ORDER_EDIT;
@@ -26,50 +34,95 @@ import static com.vaadin.starter.bakery.ui.utils.BakeryConst.PAGE_STOREFRONT_ORD
 public class OrderPresenter {
 
 	private OrderCardHeaderGenerator headersGenerator;
+	private OrderFilter filter = OrderFilter.getEmptyFilter();
 	private StorefrontView view;
 
 	private final EntityPresenter<Order, StorefrontView> entityPresenter;
 	private final OrdersGridDataProvider dataProvider;
 	private final CurrentUser currentUser;
 	private final OrderService orderService;
+	private final SearchPipeline searchPipeline;
+	private final OrderPrefetcher prefetcher;
 
 	@Autowired
 	OrderPresenter(OrderService orderService, OrdersGridDataProvider dataProvider,
-			EntityPresenter<Order, StorefrontView> entityPresenter, CurrentUser currentUser) {
+			EntityPresenter<Order, StorefrontView> entityPresenter, CurrentUser currentUser,
+			SearchPipeline searchPipeline, OrderPrefetcher prefetcher) {
 		this.orderService = orderService;
 		this.entityPresenter = entityPresenter;
 		this.dataProvider = dataProvider;
 		this.currentUser = currentUser;
+		this.searchPipeline = searchPipeline;
+		this.prefetcher = prefetcher;
 		headersGenerator = new OrderCardHeaderGenerator();
-		headersGenerator.resetHeaderChain(false);
-		dataProvider.setPageObserver(p -> headersGenerator.ordersRead(p.getContent()));
+		headersGenerator.updateHeaders(createHeaders(filter));
 	}
 
 	void init(StorefrontView view) {
 		this.entityPresenter.setView(view);
 		this.view = view;
 		view.getGrid().setDataProvider(dataProvider);
-		view.getOpenedOrderEditor().setCurrentUser(currentUser.getUser());
-		view.getOpenedOrderEditor().addCancelListener(e -> cancel());
-		view.getOpenedOrderEditor().addReviewListener(e -> review());
-		view.getOpenedOrderDetails().addSaveListenter(e -> save());
-		view.getOpenedOrderDetails().addCancelListener(e -> cancel());
-		view.getOpenedOrderDetails().addBackListener(e -> back());
-		view.getOpenedOrderDetails().addEditListener(e -> edit());
-		view.getOpenedOrderDetails().addCommentListener(e -> addComment(e.getMessage()));
+	}
+
+	void initOrderEditor(OrderEditor orderEditor) {
+		orderEditor.setCurrentUser(currentUser.getUser());
+		orderEditor.addCancelListener(e -> cancel());
+		orderEditor.addReviewListener(e -> review());
+	}
+
+	void initOrderDetails(OrderDetails orderDetails) {
+		orderDetails.addSaveListenter(e -> save());
+		orderDetails.addCancelListener(e -> cancel());
+		orderDetails.addBackListener(e -> back());
+		orderDetails.addEditListener(e -> edit());
+		orderDetails.addCommentListener(e -> addComment(e.getMessage()));
 	}
 
 	OrderCardHeader getHeaderByOrderId(Long id) {
 		return headersGenerator.get(id);
 	}
 
+	private record SearchResult(Map<Long, OrderCardHeader> headers, Slice<OrderCardData> firstPage) {
+	}
+
 	public void filterChanged(String filter, boolean showPrevious) {
-		headersGenerator.resetHeaderChain(showPrevious);
-		dataProvider.setFilter(new OrderFilter(filter, showPrevious));
+		int pageSize = view.getGrid().getPageSize();
+		// The count is only read to have it cached when the grid asks for it
+		searchPipeline.submit(UI.getCurrent(), new OrderFilter(filter, showPrevious), orderFilter -> {
+			dataProvider.count(orderFilter);
+			return new SearchResult(createHeaders(orderFilter), dataProvider.fetchFirstPage(orderFilter, pageSize));
+		}, (orderFilter, result) -> {
+			this.filter = orderFilter;
+			if (result == null) {
+				// The search failed, the grid runs the queries again
+				dataProvider.setFilter(orderFilter);
+				return;
+			}
+			headersGenerator.updateHeaders(result.headers());
+			dataProvider.setFilter(orderFilter, result.firstPage());
+		});
+	}
+
+	private Map<Long, OrderCardHeader> createHeaders(OrderFilter orderFilter) {
+		return headersGenerator.createHeaders(orderFilter.isShowPrevious(),
+				days -> dataProvider.findFirstIds(orderFilter, days));
+	}
+
+	void ordersChanged(OrderChanges changes) {
+		boolean refreshed = dataProvider.ordersChanged(changes, OrdersGridDataProvider.fetchedBy(view.getGrid()));
+		// The changed orders may have become the first of their group
+		if (headersGenerator.updateHeaders(createHeaders(filter)) && !refreshed) {
+			dataProvider.refreshAll();
+		}
 	}
 
 	void onNavigation(Long id, boolean edit) {
-		entityPresenter.loadEntity(id, e -> open(e, edit));
+		Optional<Order> prefetched = prefetcher.take(id);
+		if (prefetched.isPresent()) {
+			entityPresenter.setEntity(prefetched.get(), e -> open(e, edit));
+		} else {
+			entityPresenter.loadEntity(id, e -> open(e, edit));
+		}
 	}
 
 	void createNewOrder() {
@@ -111,12 +164,18 @@ public class OrderPresenter {
 
 	void save() {
 		entityPresenter.save(e -> {
+			// The order may have become the first of its group
+			boolean regrouped = headersGenerator.updateHeaders(createHeaders(filter));
 			if (entityPresenter.isNew()) {
 				view.showCreatedNotification();
 				dataProvider.refreshAll();
 			} else {
 				view.showUpdatedNotification();
-				dataProvider.refreshItem(e);
+				if (regrouped) {
+					dataProvider.refreshAll();
+				} else {
+					dataProvider.refreshItem(OrderCardData.of(e));
+				}
 			}
 			close();
 		});
@@ -142,7 +201,7 @@ public class OrderPresenter {
 	}
 
 	private void close() {
-		view.getOpenedOrderEditor().close();
+		view.closeOrderEditor();
 		view.setOpened(false);
 		view.navigateToMainView();
 		entityPresenter.close();
@@ -1,13 +1,22 @@
 package com.vaadin.starter.bakery.ui.views.storefront;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Stream;
 
 import jakarta.annotation.security.PermitAll;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
 
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.HasValue;
 import com.vaadin.flow.component.Tag;
 import com.vaadin.flow.component.UI;
@@ -23,11 +32,14 @@ import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.router.RouteAlias;
+import com.vaadin.flow.shared.Registration;
 import com.vaadin.starter.bakery.app.HasLogger;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
 import com.vaadin.starter.bakery.backend.data.entity.Order;
 import com.vaadin.starter.bakery.backend.data.entity.util.EntityUtil;
 import com.vaadin.starter.bakery.ui.MainView;
 import com.vaadin.starter.bakery.ui.components.SearchBar;
+import com.vaadin.starter.bakery.ui.dataproviders.OrderChangeBus;
 import com.vaadin.starter.bakery.ui.utils.BakeryConst;
 import com.vaadin.starter.bakery.ui.views.EntityView;
 import com.vaadin.starter.bakery.ui.views.orderedit.OrderDetails;
@@ -50,23 +62,41 @@ public class StorefrontView extends LitTemplate
 	private SearchBar searchBar;
 
 	@Id("grid")
-	private Grid<Order> grid;
+	private Grid<OrderCardData> grid;
 
 	@Id("dialog")
 	private Dialog dialog;
 
 	private ConfirmDialog confirmation;
 
-	private final OrderEditor orderEditor;
+	// Created when the dialog first shows them, released when it has been closed for a while
+	private OrderEditor orderEditor;
 
-	private final OrderDetails orderDetails = new OrderDetails();
+	private OrderDetails orderDetails;
+
+	private final ObjectProvider<OrderEditor> orderEditorProvider;
 
 	private final OrderPresenter presenter;
 
+	private final TaskScheduler taskScheduler;
+
+	private final Duration dialogIdleTime;
+
+	private ScheduledFuture<?> dialogRelease;
+
+	private final OrderChangeBus orderChangeBus;
+
+	private Registration orderChanges;
+
 	@Autowired
-	public StorefrontView(OrderPresenter presenter, OrderEditor orderEditor) {
+	public StorefrontView(OrderPresenter presenter, ObjectProvider<OrderEditor> orderEditorProvider,
+			OrderCardCache orderCards, OrderPrefetcher prefetcher, OrderChangeBus orderChangeBus,
+			TaskScheduler taskScheduler, @Value("${bakery.storefront.dialog-idle:5m}") Duration dialogIdleTime) {
 		this.presenter = presenter;
-		this.orderEditor = orderEditor;
+		this.orderChangeBus = orderChangeBus;
+		this.orderEditorProvider = orderEditorProvider;
+		this.taskScheduler = taskScheduler;
+		this.dialogIdleTime = dialogIdleTime;
 
 		searchBar.setActionText("New order");
 		searchBar.setCheckboxText("Show past orders");
@@ -75,10 +105,13 @@ public class StorefrontView extends LitTemplate
 		grid.setSelectionMode(Grid.SelectionMode.NONE);
 
 		grid.addColumn(OrderCard.getTemplate()
-				.withProperty("orderCard", OrderCard::create)
+				.withProperty("orderCard", orderCards::get)
 				.withProperty("header", order -> presenter.getHeaderByOrderId(order.getId()))
-				.withFunction("cardClick",
-						order -> UI.getCurrent().navigate(BakeryConst.PAGE_STOREFRONT + "/" + order.getId())));
+				.withFunction("cardHover", prefetcher::prefetch)
+				.withFunction("cardClick", order -> {
+					prefetcher.select(order);
+					UI.getCurrent().navigate(BakeryConst.PAGE_STOREFRONT + "/" + order.getId());
+				}));
 
 		getSearchBar().addFilterChangeListener(
 				e -> presenter.filterChanged(getSearchBar().getFilter(), getSearchBar().isCheckboxChecked()));
@@ -101,6 +134,42 @@ public class StorefrontView extends LitTemplate
 
 	void setOpened(boolean opened) {
 		dialog.setOpened(opened);
+		if (dialogRelease != null) {
+			dialogRelease.cancel(false);
+			dialogRelease = null;
+		}
+		UI ui = UI.getCurrent();
+		if (!opened && ui != null && (orderEditor != null || orderDetails != null)) {
+			dialogRelease = taskScheduler.schedule(() -> ui.access(this::releaseDialogContent),
+					Instant.now().plus(dialogIdleTime));
+		}
+	}
+
+	private void releaseDialogContent() {
+		if (dialog.isOpened() || isDirty()) {
+			return;
+		}
+		dialog.removeAll();
+		orderEditor = null;
+		orderDetails = null;
+		dialogRelease = null;
+	}
+
+	@Override
+	protected void onAttach(AttachEvent attachEvent) {
+		super.onAttach(attachEvent);
+		// Orders changed by other users are pushed to the grid
+		orderChanges = orderChangeBus.register(attachEvent.getUI(), presenter::ordersChanged);
+	}
+
+	@Override
+	protected void onDetach(DetachEvent detachEvent) {
+		super.onDetach(detachEvent);
+		orderChanges.remove();
+		if (dialogRelease != null) {
+			dialogRelease.cancel(false);
+			dialogRelease = null;
+		}
 	}
 
 	@Override
@@ -120,16 +189,16 @@ public class StorefrontView extends LitTemplate
 
 	@Override
 	public boolean isDirty() {
-		return orderEditor.hasChanges() || orderDetails.isDirty();
+		return orderEditor != null && orderEditor.hasChanges() || orderDetails != null && orderDetails.isDirty();
 	}
 
 	@Override
 	public void write(Order entity) throws ValidationException {
-		orderEditor.write(entity);
+		getOpenedOrderEditor().write(entity);
 	}
 
 	public Stream<HasValue<?, ?>> validate() {
-		return orderEditor.validate();
+		return getOpenedOrderEditor().validate();
 	}
 
 	SearchBar getSearchBar() {
@@ -137,27 +206,49 @@ public class StorefrontView extends LitTemplate
 	}
 
 	OrderEditor getOpenedOrderEditor() {
+		if (orderEditor == null) {
+			orderEditor = orderEditorProvider.getObject();
+			presenter.initOrderEditor(orderEditor);
+		}
 		return orderEditor;
 	}
 
 	OrderDetails getOpenedOrderDetails() {
+		if (orderDetails == null) {
+			orderDetails = new OrderDetails();
+			presenter.initOrderDetails(orderDetails);
+		}
 		return orderDetails;
 	}
 
-	Grid<Order> getGrid() {
+	void closeOrderEditor() {
+		if (orderEditor != null) {
+			orderEditor.close();
+		}
+	}
+
+	Grid<OrderCardData> getGrid() {
 		return grid;
 	}
 
 	@Override
 	public void clear() {
-		orderDetails.setDirty(false);
-		orderEditor.clear();
+		if (orderDetails != null) {
+			orderDetails.setDirty(false);
+		}
+		if (orderEditor != null) {
+			orderEditor.clear();
+		}
 	}
 
 	void setDialogElementsVisibility(boolean editing) {
-		dialog.add(editing ? orderEditor : orderDetails);
-		orderEditor.setVisible(editing);
-		orderDetails.setVisible(!editing);
+		Component shown = editing ? getOpenedOrderEditor() : getOpenedOrderDetails();
+		dialog.add(shown);
+		shown.setVisible(true);
+		Component hidden = editing ? orderDetails : orderEditor;
+		if (hidden != null) {
+			hidden.setVisible(false);
+		}
 	}
 
 	@Override
@@ -0,0 +1,96 @@
+package com.vaadin.starter.bakery.app.security;
+
+import java.util.Collections;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.vaadin.starter.bakery.backend.data.Role;
+import com.vaadin.starter.bakery.backend.data.entity.User;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+import com.vaadin.starter.bakery.backend.service.CountCacheResolver;
+import com.vaadin.starter.bakery.backend.service.UserService;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter")
+@AutoConfigureCache(cacheProvider = CacheType.SIMPLE)
+@Import({ UserService.class, CountCacheResolver.class })
+public class SessionCurrentUserTest {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private UserService userService;
+
+	private User barista;
+	private User baker;
+
+	@BeforeEach
+	public void login() {
+		barista = createUser("barista@vaadin.com", Role.BARISTA);
+		baker = createUser("baker@vaadin.com", Role.BAKER);
+		entityManager.flush();
+		entityManager.clear();
+
+		org.springframework.security.core.userdetails.User principal = new org.springframework.security.core.userdetails.User(
+				barista.getEmail(), barista.getPasswordHash(), Collections.emptyList());
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+		SqlStatementCounter.reset();
+	}
+
+	@AfterEach
+	public void logout() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void userIsReadOnce() {
+		CurrentUser currentUser = new SessionCurrentUser(userService);
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertEquals(barista.getId(), currentUser.getUser().getId());
+		}
+		Assertions.assertEquals(1, SqlStatementCounter.count(" from user_info "),
+				SqlStatementCounter.getStatements().toString());
+	}
+
+	@Test
+	public void userIsReadAgainAfterItIsSaved() {
+		CurrentUser currentUser = new SessionCurrentUser(userService);
+		User user = currentUser.getUser();
+
+		User other = userService.load(baker.getId());
+		other.setFirstName("Other");
+		userService.save(user, other);
+		Assertions.assertSame(user, currentUser.getUser());
+
+		User changed = userService.load(barista.getId());
+		changed.setFirstName("Changed");
+		changed.setEmail("changed@vaadin.com");
+		userService.save(user, changed);
+		entityManager.clear();
+		Assertions.assertEquals("Changed", currentUser.getUser().getFirstName());
+	}
+
+	private User createUser(String email, String role) {
+		User user = new User();
+		user.setEmail(email);
+		user.setPasswordHash("password-hash");
+		user.setFirstName("Test");
+		user.setLastName("User");
+		user.setRole(role);
+		entityManager.persist(user);
+		return user;
+	}
+}
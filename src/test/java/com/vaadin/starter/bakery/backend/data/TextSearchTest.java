@@ -0,0 +1,29 @@
+package com.vaadin.starter.bakery.backend.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TextSearchTest {
+
+	@Test
+	public void normalizeStripsCaseAccentsAndWhitespace() {
+		Assertions.assertEquals("elodie muller", TextSearch.normalize("  Élodie \t MÜLLER "));
+		Assertions.assertEquals("fabio lima", TextSearch.normalize("Fábio Lima"));
+		Assertions.assertNull(TextSearch.normalize(null));
+	}
+
+	@Test
+	public void trigrams() {
+		Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("ana", "na ", "a a", " an")),
+				TextSearch.trigrams("ana ana"));
+		Assertions.assertTrue(TextSearch.trigrams("an").isEmpty());
+	}
+
+	@Test
+	public void containsPatternEscapesWildcards() {
+		Assertions.assertEquals("%50!%!_!!%", TextSearch.containsPattern("50%_!"));
+	}
+}
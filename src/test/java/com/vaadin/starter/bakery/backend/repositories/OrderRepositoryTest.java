@@ -0,0 +1,103 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter")
+public class OrderRepositoryTest {
+
+	private static final int YEAR = 2024;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@BeforeEach
+	public void createOrders() {
+		new OrderTestData(entityManager, 1L).createOrders(LocalDate.of(YEAR - 3, 11, 1), LocalDate.of(YEAR + 1, 2, 1),
+				4);
+	}
+
+	@Test
+	public void keysetScrollingMatchesOffsetPaging() {
+		Sort sort = Sort.by(Sort.Direction.ASC, "dueDate", "dueTime", "id");
+		LocalDate filterDate = LocalDate.of(YEAR, 6, 1);
+
+		List<Long> offsetIds = new ArrayList<>();
+		Slice<OrderCardData> page = orderRepository.findCardsByDueDateAfter(filterDate, PageRequest.of(0, 50, sort));
+		page.forEach(o -> offsetIds.add(o.getId()));
+		while (page.hasNext()) {
+			page = orderRepository.findCardsByDueDateAfter(filterDate, page.nextPageable());
+			page.forEach(o -> offsetIds.add(o.getId()));
+		}
+
+		List<Long> keysetIds = new ArrayList<>();
+		List<OrderCardData> cards = orderRepository.findCardsByDueDateAfter(filterDate, PageRequest.of(0, 50, sort))
+				.getContent();
+		while (!cards.isEmpty()) {
+			cards.forEach(o -> keysetIds.add(o.getId()));
+			OrderCardData last = cards.get(cards.size() - 1);
+			cards = orderRepository.findCardsAfterAndDueDateAfter(last.getDueDate(), last.getDueTime(), last.getId(),
+					filterDate, Limit.of(50));
+		}
+
+		Assertions.assertTrue(offsetIds.size() > 100);
+		Assertions.assertEquals(offsetIds, keysetIds);
+	}
+
+	@Test
+	public void cardItemsMatchOrderItems() {
+		List<Order> orders = orderRepository.findAll().subList(0, 20);
+		Map<Long, List<String>> expected = new HashMap<>();
+		for (Order order : orders) {
+			expected.put(order.getId(), order.getItems().stream()
+					.map(item -> item.getProduct().getName() + " x" + item.getQuantity()).collect(Collectors.toList()));
+		}
+
+		Map<Long, List<String>> actual = new HashMap<>();
+		for (Object[] row : orderRepository.findCardItems(expected.keySet())) {
+			actual.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row[1] + " x" + row[2]);
+		}
+		Assertions.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void stateAndDueDateQueriesUseTheIndex() {
+		LocalDate dueDate = LocalDate.of(YEAR, 3, 1);
+		SqlStatementCounter.reset();
+		orderRepository.findFirstDueDateByStateAfter(OrderState.DELIVERED, dueDate);
+		orderRepository.findFirstDueTimeByStateAfter(OrderState.DELIVERED, dueDate, LocalTime.NOON);
+
+		// The plans of the statements Hibernate generated
+		String dayQuery = SqlStatementCounter.last("due_date) from order_info ");
+		String dayPlan = SqlStatementCounter.explain(entityManager, dayQuery, OrderState.DELIVERED, dueDate);
+		Assertions.assertTrue(dayPlan.toLowerCase().contains(Order.INDEX_STATE_DUE_DATE), dayPlan);
+		String timeQuery = SqlStatementCounter.last("due_time) from order_info ");
+		String timePlan = SqlStatementCounter.explain(entityManager, timeQuery, OrderState.DELIVERED, dueDate,
+				LocalTime.NOON);
+		Assertions.assertTrue(timePlan.toLowerCase().contains(Order.INDEX_STATE_DUE_DATE), timePlan);
+	}
+}
@@ -0,0 +1,121 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jakarta.persistence.EntityManager;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.Role;
+import com.vaadin.starter.bakery.backend.data.entity.Customer;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.data.entity.OrderItem;
+import com.vaadin.starter.bakery.backend.data.entity.PickupLocation;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.data.entity.User;
+
+/**
+ * Generates a reproducible set of orders for repository tests.
+ */
+public class OrderTestData {
+
+	private static final String[] NAMES = { "Ana Silva", "Bruno Costa", "Carla Dias", "Daniel Souza",
+			"Élodie Müller", "Fábio Lima", "Greta Olsen", "Hugo Pereira" };
+
+	private final EntityManager entityManager;
+	private final Random random;
+	private final List<PickupLocation> pickupLocations = new ArrayList<>();
+	private final List<Product> products = new ArrayList<>();
+	private User user;
+
+	public OrderTestData(EntityManager entityManager, long seed) {
+		this.entityManager = entityManager;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Persists up to <code>maxOrdersPerDay</code> orders for every day in the
+	 * range, with random states, pickup locations and items.
+	 */
+	public List<Order> createOrders(LocalDate from, LocalDate to, int maxOrdersPerDay) {
+		if (user == null) {
+			createReferenceData();
+		}
+
+		List<Order> orders = new ArrayList<>();
+		for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+			int count = random.nextInt(maxOrdersPerDay + 1);
+			for (int i = 0; i < count; i++) {
+				orders.add(createOrder(day));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		return orders;
+	}
+
+	public List<PickupLocation> getPickupLocations() {
+		return pickupLocations;
+	}
+
+	public List<Product> getProducts() {
+		return products;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	private void createReferenceData() {
+		user = new User();
+		user.setEmail("test@vaadin.com");
+		user.setPasswordHash("password-hash");
+		user.setFirstName("Test");
+		user.setLastName("User");
+		user.setRole(Role.BARISTA);
+		entityManager.persist(user);
+
+		for (String name : new String[] { "Store", "Bakery" }) {
+			PickupLocation location = new PickupLocation();
+			location.setName(name);
+			entityManager.persist(location);
+			pickupLocations.add(location);
+		}
+
+		for (int i = 0; i < 6; i++) {
+			Product product = new Product();
+			product.setName("Product " + i);
+			product.setPrice(100 + 50 * i);
+			entityManager.persist(product);
+			products.add(product);
+		}
+	}
+
+	private Order createOrder(LocalDate dueDate) {
+		Order order = new Order(user);
+		Customer customer = order.getCustomer();
+		customer.setFullName(NAMES[random.nextInt(NAMES.length)]);
+		customer.setPhoneNumber("+358 4" + (100000 + random.nextInt(900000)));
+		order.setDueDate(dueDate);
+		order.setDueTime(LocalTime.of(8 + random.nextInt(10), 0));
+		order.setPickupLocation(pickupLocations.get(random.nextInt(pickupLocations.size())));
+
+		List<OrderItem> items = new ArrayList<>();
+		int itemCount = 1 + random.nextInt(3);
+		for (int i = 0; i < itemCount; i++) {
+			OrderItem item = new OrderItem();
+			item.setProduct(products.get(random.nextInt(products.size())));
+			item.setQuantity(1 + random.nextInt(5));
+			items.add(item);
+		}
+		order.setItems(items);
+
+		OrderState[] states = OrderState.values();
+		order.changeState(user, states[random.nextInt(states.length)]);
+		entityManager.persist(order);
+		return order;
+	}
+}
@@ -0,0 +1,74 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL statements Hibernate executes. Enable with
+ * <code>spring.jpa.properties.hibernate.session_factory.statement_inspector</code>.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+	private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		statements.add(sql.toLowerCase());
+		return sql;
+	}
+
+	public static void reset() {
+		statements.clear();
+	}
+
+	public static List<String> getStatements() {
+		return statements;
+	}
+
+	/**
+	 * Counts the recorded statements containing the given SQL fragment.
+	 */
+	public static long count(String fragment) {
+		return statements.stream().filter(sql -> sql.contains(fragment)).count();
+	}
+
+	/**
+	 * Gets the last recorded statement containing the given SQL fragment.
+	 */
+	public static String last(String fragment) {
+		for (int i = statements.size() - 1; i >= 0; i--) {
+			if (statements.get(i).contains(fragment)) {
+				return statements.get(i);
+			}
+		}
+		throw new IllegalStateException("No statement containing " + fragment + " in " + statements);
+	}
+
+	/**
+	 * Gets the H2 plan of a recorded statement, with the parameters inlined in
+	 * order. Enums are inlined by ordinal, like they are stored.
+	 */
+	public static String explain(EntityManager entityManager, String sql, Object... parameters) {
+		StringBuilder inlined = new StringBuilder();
+		int parameter = 0;
+		for (char c : sql.toCharArray()) {
+			if (c == '?') {
+				inlined.append(literal(parameters[parameter++]));
+			} else {
+				inlined.append(c);
+			}
+		}
+		return entityManager.createNativeQuery("EXPLAIN " + inlined).getSingleResult().toString();
+	}
+
+	private static String literal(Object value) {
+		if (value instanceof Enum<?> e) {
+			return String.valueOf(e.ordinal());
+		}
+		return value instanceof Number ? value.toString() : "'" + value + "'";
+	}
+}
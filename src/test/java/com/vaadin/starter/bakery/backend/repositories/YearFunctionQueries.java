@@ -0,0 +1,59 @@
+package com.vaadin.starter.bakery.backend.repositories;
+
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+
+/**
+ * The aggregates the dashboard used to read from the orders, applying
+ * year()/month() to the due date. They are the reference the rollups and the
+ * analytics are checked against.
+ */
+public class YearFunctionQueries {
+
+	private static final String COUNT_PER_MONTH = "SELECT month(o.dueDate), count(*) FROM OrderInfo o WHERE o.state=?1 AND year(o.dueDate)=?2 GROUP BY month(o.dueDate)";
+	private static final String SUM_PER_MONTH = "SELECT year(o.dueDate), month(o.dueDate), sum(oi.quantity*p.price) FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.state=?1 AND year(o.dueDate)<=?2 AND year(o.dueDate)>=(?2-3) GROUP BY year(o.dueDate), month(o.dueDate)";
+	private static final String COUNT_PER_DAY = "SELECT day(o.dueDate), count(*) FROM OrderInfo o WHERE o.state=?1 AND year(o.dueDate)=?2 AND month(o.dueDate)=?3 GROUP BY day(o.dueDate)";
+	private static final String COUNT_PER_PRODUCT = "SELECT sum(oi.quantity), p FROM OrderInfo o JOIN o.items oi JOIN oi.product p WHERE o.state=?1 AND year(o.dueDate)=?2 AND month(o.dueDate)=?3 GROUP BY p.id ORDER BY p.id";
+
+	private final EntityManager entityManager;
+
+	public YearFunctionQueries(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Rows of month and order count.
+	 */
+	public List<Object[]> countPerMonth(OrderState state, int year) {
+		return entityManager.createQuery(COUNT_PER_MONTH, Object[].class).setParameter(1, state)
+				.setParameter(2, year).getResultList();
+	}
+
+	/**
+	 * Rows of year, month and revenue at the current product prices, for the
+	 * given year and the three before it.
+	 */
+	public List<Object[]> sumPerMonth(OrderState state, int year) {
+		return entityManager.createQuery(SUM_PER_MONTH, Object[].class).setParameter(1, state)
+				.setParameter(2, year).getResultList();
+	}
+
+	/**
+	 * Rows of day of month and order count.
+	 */
+	public List<Object[]> countPerDay(OrderState state, int year, int month) {
+		return entityManager.createQuery(COUNT_PER_DAY, Object[].class).setParameter(1, state)
+				.setParameter(2, year).setParameter(3, month).getResultList();
+	}
+
+	/**
+	 * Rows of quantity and product, in product id order.
+	 */
+	public List<Object[]> countPerProduct(OrderState state, int year, int month) {
+		return entityManager.createQuery(COUNT_PER_PRODUCT, Object[].class).setParameter(1, state)
+				.setParameter(2, year).setParameter(3, month).getResultList();
+	}
+}
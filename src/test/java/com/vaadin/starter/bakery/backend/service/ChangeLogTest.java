@@ -0,0 +1,321 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vaadin.starter.bakery.app.EntityCacheConfiguration;
+import com.vaadin.starter.bakery.backend.data.entity.AbstractEntity;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+
+/**
+ * Runs two servers as two application contexts sharing one H2 database.
+ */
+public class ChangeLogTest {
+
+	private static final String POLL = "50ms";
+
+	private ConfigurableApplicationContext first;
+
+	private ConfigurableApplicationContext second;
+
+	private OrderTestData testData;
+
+	private List<Order> orders;
+
+	@BeforeEach
+	public void startServers() {
+		first = startServer("first", "spring.jpa.hibernate.ddl-auto=create-drop");
+		orders = inTransaction(first, entityManager -> {
+			testData = new OrderTestData(entityManager, 1L);
+			return testData.createOrders(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), 4);
+		});
+		// Only the queries of the second server are recorded
+		second = startServer("second", "spring.jpa.hibernate.ddl-auto=none",
+				"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+						+ SqlStatementCounter.class.getName());
+		// Takes the current position in the log
+		first.getBean(ChangeLog.class).poll();
+		second.getBean(ChangeLog.class).poll();
+	}
+
+	@AfterEach
+	public void stopServers() {
+		second.close();
+		first.close();
+	}
+
+	@Test
+	public void orderChangesReachTheOtherServer() throws InterruptedException {
+		OrderService orderService = second.getBean(OrderService.class);
+		long count = orderService.countAnyMatchingAfterDueDate(Optional.empty(), Optional.empty());
+		Order order = orders.get(0);
+		Long id = order.getId();
+		OrderCounters counters = second.getBean(OrderCounters.class);
+		long counted = counters.get(order.getDueDate(), order.getState());
+
+		SqlStatementCounter.reset();
+		OrderService firstOrderService = first.getBean(OrderService.class);
+		firstOrderService.delete(testData.getUser(), firstOrderService.load(id));
+
+		OrderChangedEvent event = second.getBean(RemoteEvents.class).orders.poll(5, TimeUnit.SECONDS);
+		Assertions.assertNotNull(event);
+		Assertions.assertEquals(id, event.getOrderId());
+		Assertions.assertTrue(event.isDeleted());
+		// The cached count has been evicted
+		Assertions.assertEquals(count - 1,
+				orderService.countAnyMatchingAfterDueDate(Optional.empty(), Optional.empty()));
+		// Moved without reading the counts again
+		Assertions.assertEquals(counted - 1, counters.get(order.getDueDate(), order.getState()));
+		Assertions.assertEquals(0, SqlStatementCounter.count(" group by "),
+				SqlStatementCounter.getStatements().toString());
+		// A server does not apply its own changes
+		Assertions.assertTrue(first.getBean(RemoteEvents.class).orders.isEmpty());
+	}
+
+	@Test
+	public void countersFollowCommittedChanges() {
+		OrderCounters counters = first.getBean(OrderCounters.class);
+		Order order = orders.get(0);
+		long count = counters.get(order.getDueDate(), order.getState());
+
+		OrderService orderService = first.getBean(OrderService.class);
+		orderService.delete(testData.getUser(), orderService.load(order.getId()));
+
+		Assertions.assertEquals(count - 1, counters.get(order.getDueDate(), order.getState()));
+	}
+
+	@Test
+	public void reconcileWaitsForCommittedChangesToBeApplied() throws Exception {
+		OrderCounters counters = first.getBean(OrderCounters.class);
+		OrderService orderService = first.getBean(OrderService.class);
+		Order order = orders.get(0);
+		long count = counters.get(order.getDueDate(), order.getState());
+		CountDownLatch committed = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> delete = executor.submit(() -> inTransaction(first, entityManager -> {
+				// Runs after the commit, before the counters apply the deletion
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						committed.countDown();
+						awaitUninterruptibly(proceed);
+					}
+				});
+				orderService.delete(testData.getUser(), orderService.load(order.getId()));
+				return null;
+			}));
+			Assertions.assertTrue(committed.await(5, TimeUnit.SECONDS));
+			// The deletion is in the database but not yet in the counters
+			Future<?> reconcile = executor.submit(counters::reconcile);
+			Thread.sleep(200);
+			Assertions.assertFalse(reconcile.isDone());
+
+			proceed.countDown();
+			delete.get(5, TimeUnit.SECONDS);
+			reconcile.get(5, TimeUnit.SECONDS);
+		} finally {
+			proceed.countDown();
+			executor.shutdownNow();
+		}
+
+		Assertions.assertEquals(count - 1, counters.get(order.getDueDate(), order.getState()));
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void productChangesReachTheOtherServer() throws InterruptedException {
+		ProductService productService = second.getBean(ProductService.class);
+		long count = productService.countAnyMatching(Optional.empty());
+
+		Product saved = first.getBean(ProductService.class).save(testData.getUser(), product("Cheesecake"));
+
+		EntityChangedEvent event = second.getBean(RemoteEvents.class).entities.poll(5, TimeUnit.SECONDS);
+		Assertions.assertNotNull(event);
+		Assertions.assertEquals(Product.class, event.getType());
+		Assertions.assertEquals(saved.getId(), event.getId());
+		Assertions.assertTrue(event.isCreated());
+		Assertions.assertFalse(event.isDeleted());
+		Assertions.assertEquals(count + 1, productService.countAnyMatching(Optional.empty()));
+	}
+
+	@Test
+	public void cachedEntitiesAreReloadedAfterRemoteChanges() throws InterruptedException {
+		Long id = testData.getProducts().get(0).getId();
+		ProductService productService = second.getBean(ProductService.class);
+		int price = productService.load(id).getPrice();
+		// Served from the second-level cache
+		SqlStatementCounter.reset();
+		productService.load(id);
+		Assertions.assertEquals(0, SqlStatementCounter.count(" from product "),
+				SqlStatementCounter.getStatements().toString());
+
+		ProductService firstProductService = first.getBean(ProductService.class);
+		Product product = firstProductService.load(id);
+		product.setPrice(price + 100);
+		firstProductService.save(testData.getUser(), product);
+
+		EntityChangedEvent event = second.getBean(RemoteEvents.class).entities.poll(5, TimeUnit.SECONDS);
+		Assertions.assertNotNull(event);
+		Assertions.assertFalse(event.isCreated());
+		Assertions.assertEquals(price + 100, productService.load(id).getPrice());
+	}
+
+	@Test
+	public void idlePollRunsOneQuery() {
+		ChangeLog changeLog = second.getBean(ChangeLog.class);
+		SqlStatementCounter.reset();
+		for (int i = 0; i < 20; i++) {
+			changeLog.poll();
+		}
+
+		// Scheduled polls may run meanwhile, each also runs a single query
+		long queries = SqlStatementCounter.getStatements().size();
+		Assertions.assertEquals(queries, SqlStatementCounter.count(" from change_log "),
+				SqlStatementCounter.getStatements().toString());
+		Assertions.assertTrue(queries >= 20);
+	}
+
+	/**
+	 * Measures the time until a change is applied by the other server and the
+	 * cost of an idle poll. Run with <code>-Dbenchmark=true</code>.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	public void benchmarkPropagation() throws InterruptedException {
+		ProductService productService = first.getBean(ProductService.class);
+		BlockingQueue<EntityChangedEvent> received = second.getBean(RemoteEvents.class).entities;
+		int rounds = 50;
+		long latency = 0;
+		long maxLatency = 0;
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			productService.save(testData.getUser(), product("Product " + i));
+			Assertions.assertNotNull(received.poll(5, TimeUnit.SECONDS));
+			long elapsed = System.nanoTime() - start;
+			latency += elapsed;
+			maxLatency = Math.max(maxLatency, elapsed);
+		}
+
+		ChangeLog changeLog = second.getBean(ChangeLog.class);
+		int polls = 1000;
+		long start = System.nanoTime();
+		for (int i = 0; i < polls; i++) {
+			changeLog.poll();
+		}
+		long pollTime = System.nanoTime() - start;
+
+		LoggerFactory.getLogger(getClass()).info(
+				"Change log polled every {}: propagation {} ms on average, {} ms at most; idle poll {} us", POLL,
+				latency / rounds / 1_000_000, maxLatency / 1_000_000, pollTime / polls / 1000);
+	}
+
+	private static Product product(String name) {
+		Product product = new Product();
+		product.setName(name);
+		product.setPrice(1000);
+		return product;
+	}
+
+	private static ConfigurableApplicationContext startServer(String node, String... properties) {
+		return new SpringApplicationBuilder(Server.class).web(WebApplicationType.NONE)
+				.properties("spring.datasource.url=jdbc:h2:mem:change-log;DB_CLOSE_DELAY=-1",
+						"spring.cache.type=simple", "bakery.change-log.enabled=true",
+						"bakery.change-log.node=" + node, "bakery.change-log.poll=" + POLL)
+				.properties(properties)
+				.run();
+	}
+
+	private static <T> T inTransaction(ConfigurableApplicationContext context, Function<EntityManager, T> work) {
+		EntityManager entityManager = SharedEntityManagerCreator
+				.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+		return new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+				.execute(status -> work.apply(entityManager));
+	}
+
+	@Configuration
+	@ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+			TransactionAutoConfiguration.class, CacheAutoConfiguration.class })
+	@EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+	@EntityScan(basePackageClasses = AbstractEntity.class)
+	@EnableCaching
+	@EnableScheduling
+	@Import({ EntityCacheConfiguration.class, ChangeLog.class, OrderService.class, OrderRollupService.class,
+			OrderCounters.class, OrderAnalytics.class, ProductService.class, CountCacheResolver.class,
+			RemoteEvents.class })
+	static class Server {
+	}
+
+	static class RemoteEvents {
+
+		final BlockingQueue<OrderChangedEvent> orders = new LinkedBlockingQueue<>();
+
+		final BlockingQueue<EntityChangedEvent> entities = new LinkedBlockingQueue<>();
+
+		@EventListener
+		public void orderChanged(OrderChangedEvent event) {
+			if (event.isRemote()) {
+				orders.add(event);
+			}
+		}
+
+		@EventListener
+		public void entityChanged(EntityChangedEvent event) {
+			if (event.isRemote()) {
+				entities.add(event);
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.vaadin.starter.bakery.app.EntityCacheStatistics;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter")
+@AutoConfigureCache(cacheProvider = CacheType.SIMPLE)
+@Import({ ProductService.class, CountCacheResolver.class, EntityCacheStatistics.class })
+public class EntityCacheTest {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private EntityCacheStatistics cacheStatistics;
+
+	private OrderTestData testData;
+
+	@BeforeEach
+	public void createData() {
+		testData = new OrderTestData(entityManager, 1L);
+		testData.createOrders(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 8), 2);
+		cacheStatistics.clear();
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	public void productIsLoadedFromTheDatabaseOnce() {
+		long id = testData.getProducts().get(0).getId();
+		for (int i = 0; i < 3; i++) {
+			Assertions.assertEquals("Product 0", productService.load(id).getName());
+			entityManager.clear();
+		}
+
+		Assertions.assertEquals(1, SqlStatementCounter.count(" from product "),
+				SqlStatementCounter.getStatements().toString());
+		CacheRegionStatistics region = cacheStatistics.getRegionStatistics(Product.class);
+		Assertions.assertEquals(2, region.getHitCount());
+		Assertions.assertEquals(1, region.getMissCount());
+	}
+
+	@Test
+	public void savedProductReplacesTheCachedOne() {
+		long id = testData.getProducts().get(0).getId();
+		Product product = productService.load(id);
+		entityManager.clear();
+
+		product.setPrice(999);
+		productService.save(testData.getUser(), product);
+		entityManager.clear();
+
+		Assertions.assertEquals(999, productService.load(id).getPrice());
+	}
+}
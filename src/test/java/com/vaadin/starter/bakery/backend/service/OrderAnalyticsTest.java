@@ -0,0 +1,201 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.YearFunctionQueries;
+import com.vaadin.starter.bakery.backend.service.OrderAnalytics.Filter;
+import com.vaadin.starter.bakery.backend.service.OrderAnalytics.Measure;
+
+@OrderDataTest
+public class OrderAnalyticsTest {
+
+	private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+	private static final LocalDate TO = LocalDate.of(2025, 1, 1);
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private OrderAnalytics orderAnalytics;
+
+	@Autowired
+	private OrderRollupService orderRollupService;
+
+	private OrderTestData testData;
+
+	private YearFunctionQueries yearFunctionQueries;
+
+	@BeforeEach
+	public void createOrders() {
+		testData = new OrderTestData(entityManager, 1L);
+		yearFunctionQueries = new YearFunctionQueries(entityManager);
+		testData.createOrders(FROM, LocalDate.of(2024, 4, 1), 4);
+		orderAnalytics.load();
+	}
+
+	@Test
+	public void totalsMatchTheQueries() {
+		Filter delivered = Filter.of(OrderState.DELIVERED, FROM, TO);
+
+		long[] counts = orderAnalytics.perMonth(delivered, Measure.ORDERS);
+		long[] expected = new long[12];
+		for (Object[] row : yearFunctionQueries.countPerMonth(OrderState.DELIVERED, FROM.getYear())) {
+			expected[((Number) row[0]).intValue() - 1] = ((Number) row[1]).longValue();
+		}
+		Assertions.assertArrayEquals(expected, counts);
+
+		long[] sales = orderAnalytics.perMonth(delivered, Measure.REVENUE);
+		expected = new long[12];
+		for (Object[] row : yearFunctionQueries.sumPerMonth(OrderState.DELIVERED, FROM.getYear())) {
+			expected[((Number) row[1]).intValue() - 1] = ((Number) row[2]).longValue();
+		}
+		Assertions.assertArrayEquals(expected, sales);
+
+		LocalDate february = LocalDate.of(2024, 2, 1);
+		long[] perDay = orderAnalytics.perDay(Filter.of(OrderState.DELIVERED, february, february.plusMonths(1)),
+				Measure.ORDERS);
+		expected = new long[29];
+		for (Object[] row : yearFunctionQueries.countPerDay(OrderState.DELIVERED, 2024, 2)) {
+			expected[((Number) row[0]).intValue() - 1] = ((Number) row[1]).longValue();
+		}
+		Assertions.assertArrayEquals(expected, perDay);
+
+		Map<Product, Long> quantities = new LinkedHashMap<>();
+		for (int month = 1; month <= 12; month++) {
+			for (Object[] row : yearFunctionQueries.countPerProduct(OrderState.DELIVERED, FROM.getYear(), month)) {
+				quantities.merge((Product) row[1], ((Number) row[0]).longValue(), Long::sum);
+			}
+		}
+		Assertions.assertEquals(quantities, orderAnalytics.perProduct(delivered, Measure.QUANTITY));
+	}
+
+	@Test
+	public void changedOrdersAreReflected() {
+		List<Order> orders = orderRepository.findAll();
+		Order changed = orders.stream().filter(o -> o.getState() != OrderState.CANCELLED).findFirst().get();
+		Filter cancelled = Filter.of(OrderState.CANCELLED, LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 2));
+		Assertions.assertEquals(0, orderAnalytics.perDay(cancelled, Measure.ORDERS)[0]);
+
+		changed.setDueDate(LocalDate.of(2025, 6, 1));
+		changed.changeState(testData.getUser(), OrderState.CANCELLED);
+		orderService.saveOrder(changed);
+		// The test transaction is never committed, deliver the event directly
+		orderAnalytics.orderChanged(new OrderChangedEvent(changed.getId(), false));
+
+		Assertions.assertEquals(1, orderAnalytics.perDay(cancelled, Measure.ORDERS)[0]);
+		Assertions.assertEquals(orders.size(),
+				orderAnalytics.perState(new Filter(null, null, null, null), Measure.ORDERS).values().stream()
+						.mapToLong(Long::longValue).sum());
+
+		orderService.delete(testData.getUser(), orderService.load(changed.getId()));
+		orderAnalytics.orderChanged(new OrderChangedEvent(changed.getId(), true));
+		Assertions.assertEquals(0, orderAnalytics.perDay(cancelled, Measure.ORDERS)[0]);
+	}
+
+	@Test
+	public void scansDuringUpdatesNeverCountAnOrderTwice() throws Exception {
+		long orders = orderRepository.count();
+		Filter all = new Filter(null, null, null, null);
+		AtomicBoolean updating = new AtomicBoolean(true);
+		AtomicLong maxCounted = new AtomicLong();
+		// Scans do not touch the database, so they can run outside of the test transaction
+		Thread scanner = new Thread(() -> {
+			while (updating.get()) {
+				long counted = orderAnalytics.perState(all, Measure.ORDERS).values().stream()
+						.mapToLong(Long::longValue).sum();
+				maxCounted.accumulateAndGet(counted, Math::max);
+			}
+		});
+		scanner.start();
+		try {
+			Long id = orderRepository.findAll().get(0).getId();
+			for (int i = 0; i < 500; i++) {
+				orderAnalytics.orderChanged(new OrderChangedEvent(id, false));
+			}
+		} finally {
+			updating.set(false);
+			scanner.join();
+		}
+
+		Assertions.assertTrue(maxCounted.get() <= orders, maxCounted.get() + " counted of " + orders);
+	}
+
+	@Test
+	public void productRevenueAddsUpToTheTotal() {
+		for (Product product : testData.getProducts()) {
+			product.setPrice(product.getPrice() + 1000);
+			entityManager.merge(product);
+		}
+		// Items of the product are now booked at two prices
+		testData.createOrders(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 5, 1), 4);
+		entityManager.flush();
+		orderAnalytics.load();
+		Filter delivered = Filter.of(OrderState.DELIVERED, FROM, TO);
+
+		long total = 0;
+		for (long revenue : orderAnalytics.perMonth(delivered, Measure.REVENUE)) {
+			total += revenue;
+		}
+		Assertions.assertEquals(total, orderAnalytics.perProduct(delivered, Measure.REVENUE).values().stream()
+				.mapToLong(Long::longValue).sum());
+	}
+
+	/**
+	 * Compares the column scans with the rollup queries the dashboard ran
+	 * before. Run with <code>-Dbenchmark=true</code>.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	public void benchmarkAgainstQueries() {
+		testData.createOrders(LocalDate.of(2024, 4, 1), LocalDate.of(2026, 1, 1), 40);
+		entityManager.flush();
+		entityManager.clear();
+		orderAnalytics.load();
+		orderRollupService.rebuild();
+		Filter delivered = Filter.of(OrderState.DELIVERED, FROM, LocalDate.of(2026, 1, 1));
+
+		int rounds = 50;
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			orderRollupService.sumPerMonth(OrderState.DELIVERED, delivered.from(), delivered.to());
+			orderRollupService.sumQuantityPerProduct(OrderState.DELIVERED, delivered.from(), delivered.to());
+		}
+		long queries = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			orderAnalytics.perMonth(delivered, Measure.REVENUE);
+			orderAnalytics.perProduct(delivered, Measure.QUANTITY);
+		}
+		long scans = System.nanoTime() - start;
+
+		LoggerFactory.getLogger(getClass()).info(
+				"Monthly sales and product totals: rollup queries {} us, analytics {} us per round", queries / rounds / 1000,
+				scans / rounds / 1000);
+	}
+}
@@ -0,0 +1,31 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+
+/**
+ * Data JPA test with the order services, recording the SQL statements run in
+ * the {@link SqlStatementCounter}. Tests needing more beans add their own
+ * {@link Import}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter")
+@AutoConfigureCache(cacheProvider = CacheType.SIMPLE)
+@Import({ OrderService.class, OrderRollupService.class, OrderCounters.class, OrderAnalytics.class,
+		CountCacheResolver.class })
+public @interface OrderDataTest {
+}
@@ -0,0 +1,117 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.entity.OrderRollup;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+import com.vaadin.starter.bakery.backend.repositories.YearFunctionQueries;
+
+@OrderDataTest
+public class OrderRollupServiceTest {
+
+	private static final int YEAR = 2024;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderRollupService orderRollupService;
+
+	private YearFunctionQueries yearFunctionQueries;
+
+	@BeforeEach
+	public void createOrders() {
+		new OrderTestData(entityManager, 1L).createOrders(LocalDate.of(YEAR - 3, 11, 1), LocalDate.of(YEAR + 1, 2, 1),
+				4);
+		entityManager.flush();
+		orderRollupService.rebuild();
+		yearFunctionQueries = new YearFunctionQueries(entityManager);
+	}
+
+	@Test
+	public void monthlyTotalsMatchYearFunctionQueries() {
+		for (OrderState state : OrderState.values()) {
+			Map<Object, Long> expectedCounts = new HashMap<>();
+			for (Object[] row : yearFunctionQueries.countPerMonth(state, YEAR)) {
+				expectedCounts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+			}
+			Map<Object, Long> counts = new HashMap<>();
+			for (Object[] row : orderRollupService.sumPerMonth(state, LocalDate.of(YEAR, 1, 1),
+					LocalDate.of(YEAR + 1, 1, 1))) {
+				counts.put(((Number) row[1]).intValue(), ((Number) row[2]).longValue());
+			}
+			Assertions.assertFalse(expectedCounts.isEmpty());
+			Assertions.assertEquals(expectedCounts, counts);
+		}
+
+		Map<Object, Long> expectedRevenue = new HashMap<>();
+		for (Object[] row : yearFunctionQueries.sumPerMonth(OrderState.DELIVERED, YEAR)) {
+			expectedRevenue.put(row[0] + "-" + row[1], ((Number) row[2]).longValue());
+		}
+		Map<Object, Long> revenue = new HashMap<>();
+		for (Object[] row : orderRollupService.sumPerMonth(OrderState.DELIVERED, LocalDate.of(YEAR - 3, 1, 1),
+				LocalDate.of(YEAR + 1, 1, 1))) {
+			revenue.put(row[0] + "-" + row[1], ((Number) row[3]).longValue());
+		}
+		Assertions.assertFalse(expectedRevenue.isEmpty());
+		Assertions.assertEquals(expectedRevenue, revenue);
+	}
+
+	@Test
+	public void dailyAndProductTotalsMatchYearFunctionQueries() {
+		for (int month = 1; month <= 12; month++) {
+			LocalDate monthStart = LocalDate.of(YEAR, month, 1);
+
+			Map<Object, Long> expectedCounts = new HashMap<>();
+			for (Object[] row : yearFunctionQueries.countPerDay(OrderState.DELIVERED, YEAR, month)) {
+				expectedCounts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+			}
+			Map<Object, Long> counts = new HashMap<>();
+			for (Object[] row : orderRollupService.countPerDay(OrderState.DELIVERED, monthStart,
+					monthStart.plusMonths(1))) {
+				counts.put(((LocalDate) row[0]).getDayOfMonth(), ((Number) row[1]).longValue());
+			}
+			Assertions.assertEquals(expectedCounts, counts);
+
+			Map<Long, Long> expectedQuantities = new HashMap<>();
+			for (Object[] row : yearFunctionQueries.countPerProduct(OrderState.DELIVERED, YEAR, month)) {
+				expectedQuantities.put(((Product) row[1]).getId(), ((Number) row[0]).longValue());
+			}
+			Map<Long, Long> quantities = new HashMap<>();
+			for (Object[] row : orderRollupService.sumQuantityPerProduct(OrderState.DELIVERED, monthStart,
+					monthStart.plusMonths(1))) {
+				quantities.put(((Product) row[1]).getId(), ((Number) row[0]).longValue());
+			}
+			Assertions.assertEquals(expectedQuantities, quantities);
+		}
+	}
+
+	@Test
+	public void dashboardQueriesUseTheStateDueDateIndex() {
+		LocalDate from = LocalDate.of(YEAR, 3, 1);
+		LocalDate to = LocalDate.of(YEAR, 4, 1);
+		SqlStatementCounter.reset();
+		orderRollupService.countPerDay(OrderState.DELIVERED, from, to);
+		String perDay = SqlStatementCounter.last(" from order_rollup ");
+		orderRollupService.sumPerMonth(OrderState.DELIVERED, from, to);
+		String perMonth = SqlStatementCounter.last(" from order_rollup ");
+
+		// The plans of the statements Hibernate generated
+		for (String sql : new String[] { perDay, perMonth }) {
+			String plan = SqlStatementCounter.explain(entityManager, sql, OrderState.DELIVERED, from, to);
+			Assertions.assertTrue(plan.toLowerCase().contains(OrderRollup.INDEX_STATE_DUE_DATE), plan);
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package com.vaadin.starter.bakery.backend.service;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import com.vaadin.starter.bakery.backend.data.DeliveryStats;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.backend.data.TextSearch;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.data.entity.Product;
+import com.vaadin.starter.bakery.backend.repositories.OrderRepository;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+
+@OrderDataTest
+@Import({ ProductService.class, CustomerSearchBackfill.class })
+public class OrderServiceTest {
+
+	private static final Optional<LocalDate> FILTER_DATE = Optional.of(LocalDate.of(2024, 1, 1));
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private OrderCounters orderCounters;
+
+	@Autowired
+	private OrderRollupService orderRollupService;
+
+	@Autowired
+	private CustomerSearchBackfill customerSearchBackfill;
+
+	private OrderTestData testData;
+
+	@BeforeEach
+	public void createOrders() {
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+		testData = new OrderTestData(entityManager, 1L);
+		testData.createOrders(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 4, 1), 4);
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	public void fetchingAPageRunsOneQueryAndNoCount() {
+		Slice<OrderCardData> slice = orderService.findAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE,
+				PageRequest.of(2, 50, Sort.by("dueDate", "dueTime", "id")));
+
+		Assertions.assertEquals(50, slice.getNumberOfElements());
+		Assertions.assertTrue(slice.hasNext());
+		// One query for the cards and one for their items
+		Assertions.assertEquals(2, SqlStatementCounter.count(" from order_info "),
+				SqlStatementCounter.getStatements().toString());
+		Assertions.assertEquals(0, SqlStatementCounter.count("count("),
+				SqlStatementCounter.getStatements().toString());
+	}
+
+	@Test
+	public void cardsAreNotManagedEntities() {
+		Slice<OrderCardData> slice = orderService.findAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE,
+				PageRequest.of(0, 50, Sort.by("dueDate", "dueTime", "id")));
+
+		Assertions.assertEquals(50, slice.getNumberOfElements());
+		Assertions.assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+		for (OrderCardData card : slice) {
+			Order order = orderRepository.findById(card.getId()).get();
+			Assertions.assertEquals(order.getCustomer().getFullName(), card.getCustomerName());
+			Assertions.assertEquals(order.getPickupLocation().getName(), card.getPickupLocationName());
+			Assertions.assertEquals(order.getItems().size(), card.getItems().size());
+		}
+	}
+
+	@Test
+	public void customerNameSearchIgnoresCaseAndAccents() {
+		List<Order> orders = orderRepository.findAll();
+		for (String query : new String[] { "ELODIE", "müll", "Muller", "a s", "li", "e", "xyz" }) {
+			String normalized = TextSearch.normalize(query);
+			Set<Long> expected = orders.stream()
+					.filter(o -> TextSearch.normalize(o.getCustomer().getFullName()).contains(normalized))
+					.map(Order::getId).collect(Collectors.toSet());
+			Set<Long> actual = orderService
+					.findAnyMatchingAfterDueDate(Optional.of(query), Optional.empty(), PageRequest.of(0, 10000))
+					.stream().map(OrderCardData::getId).collect(Collectors.toSet());
+
+			Assertions.assertEquals(expected, actual, query);
+			Assertions.assertEquals(expected.size(),
+					orderService.countAnyMatchingAfterDueDate(Optional.of(query), Optional.empty()), query);
+		}
+	}
+
+	@Test
+	public void customersSavedWithoutSearchKeysAreFound() {
+		entityManager.createNativeQuery("DELETE FROM customer_search_trigram").executeUpdate();
+		entityManager.createNativeQuery("UPDATE customer SET search_key = NULL").executeUpdate();
+		entityManager.clear();
+		Assertions.assertEquals(0, orderService.countAnyMatchingAfterDueDate(Optional.of("muller"), Optional.empty()));
+
+		customerSearchBackfill.fillMissingSearchKeys();
+		entityManager.flush();
+		entityManager.clear();
+		cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+		long expected = orderRepository.findAll().stream()
+				.filter(o -> TextSearch.normalize(o.getCustomer().getFullName()).contains("muller")).count();
+		Assertions.assertTrue(expected > 0);
+		Assertions.assertEquals(expected,
+				orderService.countAnyMatchingAfterDueDate(Optional.of("muller"), Optional.empty()));
+	}
+
+	@Test
+	public void orderCountIsCachedUntilAnOrderIsSaved() {
+		long count = orderService.countAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE);
+		Assertions.assertEquals(count, orderService.countAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE));
+		Assertions.assertEquals(1, SqlStatementCounter.count("count("));
+
+		Order order = orderService.load(orderService
+				.findAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE, PageRequest.of(0, 1)).getContent().get(0)
+				.getId());
+		order.setDueDate(LocalDate.of(2023, 12, 1));
+		orderService.saveOrder(order);
+
+		Assertions.assertEquals(count - 1, orderService.countAnyMatchingAfterDueDate(Optional.empty(), FILTER_DATE));
+		Assertions.assertEquals(2, SqlStatementCounter.count("count("));
+	}
+
+	@Test
+	public void firstIdsFollowTheCardOrder() {
+		List<LocalDate> days = List.of(LocalDate.of(2023, 6, 1), LocalDate.of(2024, 2, 10), LocalDate.of(2024, 3, 5),
+				LocalDate.of(2030, 1, 1));
+		for (Optional<String> filter : List.of(Optional.<String> empty(), Optional.of("li"), Optional.of("Muller"))) {
+			List<OrderCardData> cards = orderService
+					.findAnyMatchingAfterDueDate(filter, FILTER_DATE,
+							PageRequest.of(0, 10000, Sort.by("dueDate", "dueTime", "id")))
+					.getContent();
+			List<Long> expected = days.stream()
+					.map(day -> cards.stream().filter(card -> !card.getDueDate().isBefore(day)).findFirst()
+							.map(OrderCardData::getId).orElse(null))
+					.collect(Collectors.toList());
+
+			Assertions.assertEquals(expected, orderService.findFirstIdsFrom(filter, FILTER_DATE, days),
+					filter.toString());
+		}
+	}
+
+	@Test
+	public void changedCardsAreReadInTwoQueries() {
+		Map<Long, Integer> itemCounts = orderRepository.findAll().subList(0, 5).stream()
+				.collect(Collectors.toMap(Order::getId, order -> order.getItems().size()));
+		Set<Long> ids = itemCounts.keySet();
+		entityManager.clear();
+		SqlStatementCounter.reset();
+
+		List<OrderCardData> cards = orderService.findCards(ids);
+
+		Assertions.assertEquals(ids, cards.stream().map(OrderCardData::getId).collect(Collectors.toSet()));
+		for (OrderCardData card : cards) {
+			Assertions.assertEquals(itemCounts.get(card.getId()), card.getItems().size());
+		}
+		Assertions.assertEquals(2, SqlStatementCounter.count(" from order_info "),
+				SqlStatementCounter.getStatements().toString());
+	}
+
+	@Test
+	public void productCountIsCachedUntilAProductIsSaved() {
+		long count = productService.countAnyMatching(Optional.empty());
+		Assertions.assertEquals(count, productService.countAnyMatching(Optional.empty()));
+		Assertions.assertEquals(1, SqlStatementCounter.count("count("));
+
+		Product product = new Product();
+		product.setName("New product");
+		product.setPrice(500);
+		productService.save(testData.getUser(), product);
+
+		Assertions.assertEquals(count + 1, productService.countAnyMatching(Optional.empty()));
+		Assertions.assertEquals(2, SqlStatementCounter.count("count("));
+	}
+
+	@Test
+	public void deliveryStatsMatchTheOrders() {
+		LocalDate today = LocalDate.now();
+		testData.createOrders(today.minusDays(3), today.plusDays(5), 8);
+		// The counters outlive the rolled back transactions of other tests
+		orderCounters.reconcile();
+		List<Order> orders = orderRepository.findAll();
+		SqlStatementCounter.reset();
+
+		DeliveryStats stats = orderService.getDeliveryStats();
+
+		Assertions.assertEquals(count(orders, today, null), stats.getDueToday());
+		Assertions.assertEquals(count(orders, today.plusDays(1), null), stats.getDueTomorrow());
+		Assertions.assertEquals(count(orders, today, OrderState.DELIVERED), stats.getDeliveredToday());
+		Assertions.assertEquals(orders.stream().filter(o -> o.getState() == OrderState.NEW).count(),
+				stats.getNewOrders());
+		Assertions.assertEquals(orders.stream().filter(o -> o.getDueDate().equals(today.plusDays(1)))
+				.map(Order::getDueTime).min(Comparator.naturalOrder()).orElse(null), stats.getFirstDueTimeTomorrow());
+		Assertions.assertEquals(orders.stream().map(Order::getCreatedAt).max(Comparator.naturalOrder()).get(),
+				stats.getLastOrderCreatedAt());
+		// No counting, at most four single row lookups
+		Assertions.assertEquals(0, SqlStatementCounter.count("count("),
+				SqlStatementCounter.getStatements().toString());
+		Assertions.assertTrue(SqlStatementCounter.count(" from order_info ") <= 4,
+				SqlStatementCounter.getStatements().toString());
+	}
+
+	@Test
+	public void countersIgnoreChangesNotCommitted() {
+		orderCounters.reconcile();
+		List<Order> orders = orderRepository.findAll();
+		long total = 0;
+		for (OrderState state : OrderState.values()) {
+			total += orderCounters.get(state);
+		}
+		Assertions.assertEquals(orders.size(), total);
+
+		Order changed = orders.stream().filter(o -> o.getState() != OrderState.CANCELLED).findFirst().get();
+		LocalDate oldDueDate = changed.getDueDate();
+		OrderState oldState = changed.getState();
+		long oldCount = orderCounters.get(oldDueDate, oldState);
+		LocalDate newDueDate = LocalDate.of(2025, 6, 1);
+
+		changed.setDueDate(newDueDate);
+		changed.changeState(testData.getUser(), OrderState.CANCELLED);
+		orderService.saveOrder(changed);
+		Assertions.assertEquals(oldCount, orderCounters.get(oldDueDate, oldState));
+		Assertions.assertEquals(0, orderCounters.get(newDueDate));
+
+		TestTransaction.end();
+		Assertions.assertEquals(oldCount, orderCounters.get(oldDueDate, oldState));
+		Assertions.assertEquals(0, orderCounters.get(newDueDate));
+	}
+
+	@Test
+	public void priceChangesDoNotRestateBookedOrders() {
+		Order order = orderRepository.findAll().get(0);
+		int totalPrice = order.getTotalPrice();
+		LocalDate month = order.getDueDate().withDayOfMonth(1);
+		orderRollupService.rebuild();
+		List<Object[]> revenue = orderRollupService.sumPerMonth(order.getState(), month, month.plusMonths(1));
+
+		Product product = order.getItems().get(0).getProduct();
+		product.setPrice(product.getPrice() + 1000);
+		productService.save(testData.getUser(), product);
+		entityManager.flush();
+		entityManager.clear();
+		orderRollupService.rebuild();
+
+		Assertions.assertEquals(totalPrice, orderService.load(order.getId()).getTotalPrice());
+		Assertions.assertArrayEquals(revenue.get(0),
+				orderRollupService.sumPerMonth(order.getState(), month, month.plusMonths(1)).get(0));
+	}
+
+	private static long count(List<Order> orders, LocalDate dueDate, OrderState state) {
+		return orders.stream().filter(o -> o.getDueDate().equals(dueDate))
+				.filter(o -> state == null || o.getState() == state).count();
+	}
+}
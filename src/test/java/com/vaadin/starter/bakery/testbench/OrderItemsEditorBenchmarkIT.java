@@ -0,0 +1,75 @@
+package com.vaadin.starter.bakery.testbench;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+
+import com.vaadin.flow.component.combobox.testbench.ComboBoxElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.OrderItemEditorElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.StorefrontViewElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.StorefrontViewElement.OrderEditorElement;
+import com.vaadin.testbench.BrowserTest;
+
+/**
+ * Measures the server round trips of adding lines to a large order. The
+ * server time is the time to the first byte of the response, which on a
+ * local server is mostly spent processing the request. Run with
+ * <code>-Dbenchmark=true</code>.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OrderItemsEditorBenchmarkIT extends AbstractIT<StorefrontViewElement> {
+
+	private static final int LINES = 200;
+
+	private static final int MEASURED_LINES = 50;
+
+	// Server time and response size of the UIDL requests since the last call
+	private static final String TAKE_UIDL_TIMINGS = "var entries = performance.getEntriesByType('resource')"
+			+ ".filter(function(e) { return e.name.indexOf('v-r=uidl') >= 0; });"
+			+ "performance.clearResourceTimings();"
+			+ "return entries.map(function(e) { return { server: e.responseStart - e.requestStart,"
+			+ " bytes: e.decodedBodySize }; });";
+
+	@Override
+	protected StorefrontViewElement openView() {
+		return openLoginView().login("admin@vaadin.com", "admin");
+	}
+
+	@BrowserTest
+	public void addLinesToALargeOrder() {
+		StorefrontViewElement storefrontPage = openView();
+		storefrontPage.getSearchBar().getCreateNewButton().click();
+		OrderEditorElement orderEditor = storefrontPage.getOrderEditor();
+		List<String> products = orderEditor.getOrderItemEditor(0).getProducts().getOptions();
+
+		double serverTime = 0;
+		long bytes = 0;
+		for (int line = 0; line < LINES; line++) {
+			if (line == LINES - MEASURED_LINES) {
+				takeUidlTimings();
+			}
+			ComboBoxElement empty = orderEditor.$(OrderItemEditorElement.class).last().getProducts();
+			empty.selectByText(products.get(line % products.size()));
+			if (line >= LINES - MEASURED_LINES) {
+				for (Map<String, Number> timing : takeUidlTimings()) {
+					serverTime += timing.get("server").doubleValue();
+					bytes += timing.get("bytes").longValue();
+				}
+			}
+		}
+
+		// Plus the empty row
+		Assertions.assertEquals(LINES + 1, orderEditor.$(OrderItemEditorElement.class).all().size());
+		LoggerFactory.getLogger(getClass()).info("Adding line {} to {}: {} ms server time, {} bytes per line",
+				LINES - MEASURED_LINES + 1, LINES, String.format("%.1f", serverTime / MEASURED_LINES),
+				bytes / MEASURED_LINES);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Number>> takeUidlTimings() {
+		return (List<Map<String, Number>>) executeScript(TAKE_UIDL_TIMINGS);
+	}
+}
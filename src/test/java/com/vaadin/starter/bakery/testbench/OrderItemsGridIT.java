@@ -0,0 +1,115 @@
+package com.vaadin.starter.bakery.testbench;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+
+import com.vaadin.flow.component.combobox.testbench.ComboBoxElement;
+import com.vaadin.flow.component.textfield.testbench.IntegerFieldElement;
+import com.vaadin.starter.bakery.testbench.elements.components.OrderCardElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.OrderItemsGridElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.StorefrontViewElement;
+import com.vaadin.starter.bakery.testbench.elements.ui.StorefrontViewElement.OrderEditorElement;
+import com.vaadin.testbench.BrowserTest;
+
+/**
+ * Edits an order with more lines than <code>bakery.order-editor.grid-threshold</code>
+ * (50 by default), which the order editor shows in a grid.
+ */
+public class OrderItemsGridIT extends AbstractIT<StorefrontViewElement> {
+
+	private static final int LINES = 51;
+
+	private StorefrontViewElement storefrontPage;
+
+	private OrderEditorElement orderEditor;
+
+	private OrderItemsGridElement grid;
+
+	@Override
+	protected StorefrontViewElement openView() {
+		return openLoginView().login("admin@vaadin.com", "admin");
+	}
+
+	@BeforeEach
+	public void openLargeOrder() {
+		storefrontPage = openView();
+		String customer = "Grid Customer " + System.currentTimeMillis();
+		createOrder(customer);
+
+		storefrontPage.getSearchBar().getField().setValue(customer);
+		waitUntil(driver -> storefrontPage.getGrid().getRowCount() == 1);
+		storefrontPage.getGrid().getCell(0, 0).getPropertyElement("_content").$(OrderCardElement.class).first()
+				.click();
+		storefrontPage.getOrderDetails().getEditButton().click();
+
+		orderEditor = storefrontPage.getOrderEditor();
+		waitUntil(driver -> orderEditor.hasOrderItemsGrid());
+		grid = orderEditor.getOrderItemsGrid();
+		Assertions.assertEquals(LINES, grid.getRowCount());
+	}
+
+	private void createOrder(String customer) {
+		storefrontPage.getSearchBar().getCreateNewButton().click();
+		OrderEditorElement editor = storefrontPage.getOrderEditor();
+		ComboBoxElement pickupLocation = editor.getPickupLocation();
+		pickupLocation.selectByText(pickupLocation.getOptions().get(0));
+		editor.getCustomerNameField().setValue(customer);
+		editor.getCustomerNumberField().setValue("5551234567");
+		List<String> products = editor.getOrderItemEditor(0).getProducts().getOptions();
+		for (int line = 0; line < LINES; line++) {
+			editor.getEmptyOrderItemEditor().getProducts().selectByText(products.get(line % products.size()));
+		}
+		editor.review();
+		storefrontPage.getOrderDetails().getSaveButton().click();
+		waitUntil(driver -> !storefrontPage.getDialog().get().isOpen());
+	}
+
+	@BrowserTest
+	public void totalFollowsEditedAndRemovedLines() {
+		int total = orderEditor.getTotalPrice();
+		int price = grid.getPrice(1);
+
+		grid.edit(1);
+		IntegerFieldElement quantity = grid.getQuantityField(1);
+		int amount = Integer.parseInt(quantity.getValue());
+		quantity.setValue(String.valueOf(amount + 2));
+		int editedPrice = price / amount * (amount + 2);
+		waitUntil(driver -> orderEditor.getTotalPrice() == total + editedPrice - price);
+
+		int removedPrice = grid.getPrice(0);
+		grid.remove(0);
+		waitUntil(driver -> grid.getRowCount() == LINES - 1);
+		Assertions.assertEquals(total + editedPrice - price - removedPrice, orderEditor.getTotalPrice());
+	}
+
+	@BrowserTest
+	public void newLineMovesFromTheEmptyEditorToTheGrid() {
+		int total = orderEditor.getTotalPrice();
+		ComboBoxElement products = orderEditor.getEmptyOrderItemEditor().getProducts();
+		String product = products.getOptions().get(0);
+
+		products.selectByText(product);
+
+		waitUntil(driver -> grid.getRowCount() == LINES + 1);
+		Assertions.assertEquals(product, grid.getProduct(LINES));
+		Assertions.assertTrue(grid.isEdited(LINES));
+		Assertions.assertEquals(total + grid.getPrice(LINES), orderEditor.getTotalPrice());
+		// A fresh editor for the next line
+		Assertions.assertEquals("", orderEditor.getEmptyOrderItemEditor().getProducts().getSelectedText());
+	}
+
+	@BrowserTest
+	public void reviewKeepsTheInvalidLineOpen() {
+		grid.edit(3);
+		IntegerFieldElement quantity = grid.getQuantityField(3);
+		quantity.setValue("");
+
+		orderEditor.review();
+
+		Assertions.assertTrue(orderEditor.isDisplayed());
+		Assertions.assertTrue(grid.isEdited(3));
+		Assertions.assertTrue(grid.getQuantityField(3).hasAttribute("invalid"));
+	}
+}
@@ -1,6 +1,7 @@
 package com.vaadin.starter.bakery.testbench.elements.components;
 
 import com.vaadin.flow.component.button.testbench.ButtonElement;
+import com.vaadin.flow.component.textfield.testbench.TextFieldElement;
 import com.vaadin.testbench.TestBenchElement;
 import com.vaadin.testbench.elementsbase.Element;
 
@@ -10,4 +11,8 @@ public class SearchBarElement extends TestBenchElement {
     public ButtonElement getCreateNewButton() {
         return $(ButtonElement.class).id("action");
     }
+
+    public TextFieldElement getField() {
+        return $(TextFieldElement.class).id("field");
+    }
 }
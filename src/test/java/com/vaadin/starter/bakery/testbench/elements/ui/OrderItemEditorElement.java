@@ -1,5 +1,6 @@
 package com.vaadin.starter.bakery.testbench.elements.ui;
 
+import com.vaadin.flow.component.combobox.testbench.ComboBoxElement;
 import com.vaadin.flow.component.textfield.testbench.TextFieldElement;
 import com.vaadin.testbench.TestBenchElement;
 import com.vaadin.testbench.elementsbase.Element;
@@ -15,6 +16,10 @@ public class OrderItemEditorElement extends TestBenchElement {
 		clickAmountFieldPlusOrMinus(-1);
 	}
 	
+	public ComboBoxElement getProducts() {
+		return $(ComboBoxElement.class).id("products");
+	}
+
 	public TextFieldElement getCommentField() {
 		return $(TextFieldElement.class).id("comment");
 	}
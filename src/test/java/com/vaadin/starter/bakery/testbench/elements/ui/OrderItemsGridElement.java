@@ -0,0 +1,63 @@
+package com.vaadin.starter.bakery.testbench.elements.ui;
+
+import com.vaadin.flow.component.button.testbench.ButtonElement;
+import com.vaadin.flow.component.grid.testbench.GridElement;
+import com.vaadin.flow.component.textfield.testbench.IntegerFieldElement;
+import com.vaadin.testbench.TestBenchElement;
+import com.vaadin.testbench.elementsbase.Element;
+
+/**
+ * The lines of a large order, edited in a grid.
+ */
+@Element("vaadin-grid")
+public class OrderItemsGridElement extends GridElement {
+
+	private static final int PRODUCT = 0;
+	private static final int QUANTITY = 1;
+	private static final int PRICE = 2;
+	private static final int DELETE = 4;
+
+	public String getProduct(int row) {
+		return getCell(row, PRODUCT).getText();
+	}
+
+	/**
+	 * Gets the price of a line in cents.
+	 */
+	public int getPrice(int row) {
+		return toCents(getCell(row, PRICE).getText());
+	}
+
+	/**
+	 * Opens the line in the grid editor by clicking it.
+	 */
+	public void edit(int row) {
+		getCell(row, PRODUCT).click();
+	}
+
+	/**
+	 * Gets the quantity field of the line, present while the line is edited.
+	 */
+	public IntegerFieldElement getQuantityField(int row) {
+		return getCellContent(row, QUANTITY).$(IntegerFieldElement.class).first();
+	}
+
+	public boolean isEdited(int row) {
+		return getCellContent(row, QUANTITY).$(IntegerFieldElement.class).exists();
+	}
+
+	public void remove(int row) {
+		getCellContent(row, DELETE).$(ButtonElement.class).first().click();
+	}
+
+	private TestBenchElement getCellContent(int row, int column) {
+		return getCell(row, column).getPropertyElement("_content");
+	}
+
+	/**
+	 * Reads the cents of a formatted price, e.g. "$1,234.50".
+	 */
+	public static int toCents(String price) {
+		return Integer.parseInt(price.replaceAll("[^0-9]", ""));
+	}
+}
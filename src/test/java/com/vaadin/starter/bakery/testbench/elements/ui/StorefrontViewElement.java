@@ -3,6 +3,7 @@ package com.vaadin.starter.bakery.testbench.elements.ui;
 import java.util.Optional;
 
 import com.vaadin.flow.component.button.testbench.ButtonElement;
+import com.vaadin.flow.component.combobox.testbench.ComboBoxElement;
 import com.vaadin.flow.component.dialog.testbench.DialogElement;
 import com.vaadin.flow.component.grid.testbench.GridElement;
 import com.vaadin.flow.component.textfield.testbench.TextFieldElement;
@@ -21,6 +22,37 @@ public class StorefrontViewElement extends TestBenchElement implements HasApp, H
 			return $(OrderItemEditorElement.class).get(index);
 		}
 
+		/**
+		 * Gets the editor of the line being added, below the lines.
+		 */
+		public OrderItemEditorElement getEmptyOrderItemEditor() {
+			return $(OrderItemEditorElement.class).last();
+		}
+
+		public OrderItemsGridElement getOrderItemsGrid() {
+			return $(OrderItemsGridElement.class).first();
+		}
+
+		public boolean hasOrderItemsGrid() {
+			return $(OrderItemsGridElement.class).exists();
+		}
+
+		/**
+		 * Gets the total price of the order in cents.
+		 */
+		public int getTotalPrice() {
+			return OrderItemsGridElement.toCents($("div").withAttributeContainingWord("class", "total").first()
+					.getText());
+		}
+
+		public ComboBoxElement getPickupLocation() {
+			return $(ComboBoxElement.class).id("pickupLocation");
+		}
+
+		public TextFieldElement getCustomerNumberField() {
+			return $(TextFieldElement.class).id("customerNumber");
+		}
+
 		public void review() {
 			$(ButtonElement.class).id("review").click();
 		}
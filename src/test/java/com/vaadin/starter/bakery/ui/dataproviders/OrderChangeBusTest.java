@@ -0,0 +1,117 @@
+package com.vaadin.starter.bakery.ui.dataproviders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.server.Command;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent;
+import com.vaadin.starter.bakery.backend.service.OrderDataTest;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+import com.vaadin.starter.bakery.ui.dataproviders.OrderChangeBus.OrderChanges;
+
+@OrderDataTest
+public class OrderChangeBusTest {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderService orderService;
+
+	private final List<Runnable> deliveries = new ArrayList<>();
+
+	private OrderChangeBus bus;
+
+	private List<Order> orders;
+
+	@BeforeEach
+	public void createBus() {
+		orders = new OrderTestData(entityManager, 1L).createOrders(LocalDate.of(2024, 1, 1),
+				LocalDate.of(2024, 2, 1), 4);
+		// Deliveries are run by the test, in the test transaction
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler() {
+			@Override
+			public ScheduledFuture<?> schedule(Runnable task, Instant startTime) {
+				deliveries.add(task);
+				return null;
+			}
+		};
+		bus = new OrderChangeBus(orderService, scheduler, Duration.ofMillis(500));
+	}
+
+	@Test
+	public void changesAreDeliveredTogether() {
+		List<OrderChanges> received = new ArrayList<>();
+		bus.register(Command::execute, received::add);
+		Long saved = orders.get(0).getId();
+		Long created = orders.get(1).getId();
+		Long createdAndDeleted = orders.get(2).getId();
+		Long deleted = orders.get(3).getId();
+
+		bus.orderChanged(new OrderChangedEvent(saved, false));
+		bus.orderChanged(new OrderChangedEvent(created, true, false));
+		bus.orderChanged(new OrderChangedEvent(saved, false));
+		bus.orderChanged(new OrderChangedEvent(createdAndDeleted, true, false));
+		bus.orderChanged(new OrderChangedEvent(createdAndDeleted, true));
+		bus.orderChanged(new OrderChangedEvent(deleted, true));
+
+		Assertions.assertEquals(1, deliveries.size());
+		deliveries.remove(0).run();
+
+		Assertions.assertEquals(1, received.size());
+		OrderChanges changes = received.get(0);
+		Assertions.assertEquals(List.of(saved, created),
+				changes.getSaved().stream().map(OrderCardData::getId).sorted().toList());
+		Assertions.assertFalse(changes.isCreated(saved));
+		Assertions.assertTrue(changes.isCreated(created));
+		Assertions.assertEquals(Set.of(deleted), changes.getDeleted());
+
+		// The next change schedules a new delivery
+		bus.orderChanged(new OrderChangedEvent(saved, false));
+		Assertions.assertEquals(1, deliveries.size());
+	}
+
+	@Test
+	public void detachedListenersAreRemoved() {
+		List<OrderChanges> received = new ArrayList<>();
+		AtomicInteger detachedAccesses = new AtomicInteger();
+		bus.register(command -> {
+			detachedAccesses.incrementAndGet();
+			throw new UIDetachedException();
+		}, received::add);
+		bus.register(Command::execute, received::add);
+
+		bus.orderChanged(new OrderChangedEvent(orders.get(0).getId(), false));
+		deliveries.remove(0).run();
+		bus.orderChanged(new OrderChangedEvent(orders.get(0).getId(), false));
+		deliveries.remove(0).run();
+
+		Assertions.assertEquals(1, detachedAccesses.get());
+		Assertions.assertEquals(2, received.size());
+	}
+
+	@Test
+	public void nothingIsCollectedWithoutListeners() {
+		bus.orderChanged(new OrderChangedEvent(orders.get(0).getId(), false));
+
+		Assertions.assertTrue(deliveries.isEmpty());
+	}
+}
@@ -0,0 +1,106 @@
+package com.vaadin.starter.bakery.ui.dataproviders;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import com.vaadin.flow.data.provider.DataChangeEvent;
+import com.vaadin.flow.data.provider.DataChangeEvent.DataRefreshEvent;
+import com.vaadin.flow.data.provider.Query;
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.ui.dataproviders.OrderChangeBus.OrderChanges;
+import com.vaadin.starter.bakery.ui.dataproviders.OrdersGridDataProvider.OrderFilter;
+
+public class OrdersGridDataProviderTest {
+
+	// Orders 1 and 2 have been fetched by the grid
+	private static final Set<Long> SHOWN = Set.of(1L, 2L);
+
+	private final OrdersGridDataProvider dataProvider = new OrdersGridDataProvider(null);
+
+	private final List<DataChangeEvent<OrderCardData>> events = new ArrayList<>();
+
+	@BeforeEach
+	public void listen() {
+		dataProvider.setFilter(new OrderFilter("Jane", false));
+		dataProvider.addDataProviderListener(events::add);
+		events.clear();
+	}
+
+	@Test
+	public void shownOrderStillMatchingIsRefreshedInPlace() {
+		Assertions.assertFalse(ordersChanged(changes(List.of(card(1L, "Jane Doe")), Set.of(), Set.of())));
+
+		Assertions.assertEquals(1, events.size());
+		Assertions.assertEquals(1L, ((DataRefreshEvent<OrderCardData>) events.get(0)).getItem().getId());
+	}
+
+	@Test
+	public void shownOrderNoLongerMatchingRefreshesAllRows() {
+		Assertions.assertTrue(ordersChanged(changes(List.of(card(1L, "John Doe")), Set.of(), Set.of())));
+		assertAllRefreshed();
+	}
+
+	@Test
+	public void createdOrderMatchingRefreshesAllRows() {
+		Assertions.assertTrue(ordersChanged(changes(List.of(card(3L, "Jane Roe")), Set.of(3L), Set.of())));
+		assertAllRefreshed();
+	}
+
+	@Test
+	public void ordersNotShownAndNotMatchingAreIgnored() {
+		Assertions.assertFalse(ordersChanged(changes(List.of(card(3L, "Jane Roe"), card(4L, "John Doe")),
+				Set.of(4L), Set.of())));
+
+		Assertions.assertTrue(events.isEmpty());
+	}
+
+	@Test
+	public void onlyShownDeletedOrdersRefreshAllRows() {
+		Assertions.assertFalse(ordersChanged(changes(List.of(), Set.of(), Set.of(3L))));
+		Assertions.assertTrue(events.isEmpty());
+
+		Assertions.assertTrue(ordersChanged(changes(List.of(), Set.of(), Set.of(2L, 3L))));
+		assertAllRefreshed();
+	}
+
+	@Test
+	public void firstPageReadWithTheFilterIsServedToTheGrid() {
+		List<OrderCardData> cards = List.of(card(1L, "Jane Doe"), card(2L, "Jane Roe"), card(3L, "Jane Poe"));
+		// Fetching from the service would fail, there is none
+		dataProvider.setFilter(new OrderFilter("Jane", true), new SliceImpl<>(cards, PageRequest.of(0, 3), true));
+
+		List<OrderCardData> fetched = dataProvider.fetch(new Query<>(0, 2, Collections.emptyList(), null, null))
+				.toList();
+
+		Assertions.assertEquals(cards.subList(0, 2), fetched);
+	}
+
+	private boolean ordersChanged(OrderChanges changes) {
+		return dataProvider.ordersChanged(changes, SHOWN::contains);
+	}
+
+	private void assertAllRefreshed() {
+		Assertions.assertEquals(1, events.size());
+		Assertions.assertFalse(events.get(0) instanceof DataRefreshEvent);
+	}
+
+	private static OrderChanges changes(List<OrderCardData> saved, Set<Long> created, Set<Long> deleted) {
+		return new OrderChanges(saved, created, deleted);
+	}
+
+	private static OrderCardData card(Long id, String customer) {
+		return new OrderCardData(id, 1, LocalDate.now().plusDays(1), LocalTime.of(9, 30), OrderState.NEW, customer,
+				"Bakery");
+	}
+}
@@ -0,0 +1,107 @@
+package com.vaadin.starter.bakery.ui.views.dashboard;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.vaadin.starter.bakery.app.AsyncConfiguration;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+import com.vaadin.starter.bakery.backend.service.OrderChangedEvent;
+import com.vaadin.starter.bakery.backend.service.OrderDataTest;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+
+@OrderDataTest
+@Import({ DashboardSnapshotServiceTest.DirectExecutor.class, DashboardSnapshotService.class })
+public class DashboardSnapshotServiceTest {
+
+	/**
+	 * Runs the dashboard queries in the test thread, as the test data is only
+	 * visible within the test transaction.
+	 */
+	@TestConfiguration
+	static class DirectExecutor {
+
+		@Bean(name = AsyncConfiguration.DASHBOARD_EXECUTOR)
+		public Executor dashboardExecutor() {
+			return Runnable::run;
+		}
+	}
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private DashboardSnapshotService snapshotService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@BeforeEach
+	public void createOrders() {
+		LocalDate today = LocalDate.now();
+		new OrderTestData(entityManager, 1L).createOrders(today.minusDays(7), today.plusDays(7), 4);
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	public void snapshotIsSharedUntilAnOrderChanges() {
+		DashboardSnapshot snapshot = snapshotService.getSnapshot();
+		Assertions.assertTrue(snapshot.getAll().isDone());
+		Assertions.assertFalse(snapshot.getAll().isCompletedExceptionally());
+		int statements = SqlStatementCounter.getStatements().size();
+		Assertions.assertTrue(statements > 0);
+
+		Assertions.assertSame(snapshot, snapshotService.getSnapshot());
+		Assertions.assertEquals(statements, SqlStatementCounter.getStatements().size());
+
+		snapshotService.orderChanged(new OrderChangedEvent(1L, false));
+		Assertions.assertNotSame(snapshot, snapshotService.getSnapshot());
+		Assertions.assertTrue(SqlStatementCounter.getStatements().size() > statements);
+	}
+
+	@Test
+	public void chartsAreReadyToBeBound() {
+		DashboardSnapshot snapshot = snapshotService.getSnapshot();
+		LocalDate today = snapshot.getDate();
+
+		DashboardChartData deliveriesThisMonth = snapshot.getDeliveriesThisMonth().join();
+		Assertions.assertEquals(today.lengthOfMonth(), deliveriesThisMonth.getCategories().length);
+		Assertions.assertEquals(today.lengthOfMonth(), deliveriesThisMonth.getSeries().get("per Day").size());
+
+		DashboardChartData sales = snapshot.getSalesPerMonth().join();
+		Assertions.assertEquals(List.of(Integer.toString(today.getYear()), Integer.toString(today.getYear() - 1),
+				Integer.toString(today.getYear() - 2)), List.copyOf(sales.getSeries().keySet()));
+
+		DashboardChartData products = snapshot.getProductDeliveries().join();
+		Assertions.assertEquals(products.getCategories().length, products.getSeries().get("Deliveries").size());
+	}
+
+	@Test
+	public void periodicRefreshOnlyRunsWhileTheDashboardIsInUse() {
+		DashboardSnapshotService inUse = new DashboardSnapshotService(orderService, Runnable::run,
+				Duration.ofMinutes(5));
+		inUse.getSnapshot();
+		SqlStatementCounter.reset();
+		inUse.refreshPeriodically();
+		Assertions.assertTrue(SqlStatementCounter.getStatements().size() > 0);
+
+		DashboardSnapshotService idle = new DashboardSnapshotService(orderService, Runnable::run, Duration.ZERO);
+		idle.getSnapshot();
+		SqlStatementCounter.reset();
+		idle.refreshPeriodically();
+		Assertions.assertEquals(0, SqlStatementCounter.getStatements().size(),
+				SqlStatementCounter.getStatements().toString());
+	}
+}
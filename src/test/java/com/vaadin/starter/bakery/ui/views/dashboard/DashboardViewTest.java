@@ -0,0 +1,72 @@
+package com.vaadin.starter.bakery.ui.views.dashboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.vaadin.flow.component.UIDetachedException;
+import com.vaadin.flow.server.Command;
+
+public class DashboardViewTest {
+
+	private final List<Command> accesses = new ArrayList<>();
+
+	private final List<String> shown = new ArrayList<>();
+
+	private final List<Throwable> failures = new ArrayList<>();
+
+	@Test
+	public void completedPartIsShownInUiAccess() {
+		CompletableFuture<String> part = new CompletableFuture<>();
+		DashboardView.show(accesses::add, part, shown::add, failures::add);
+		Assertions.assertTrue(accesses.isEmpty());
+
+		part.complete("counts");
+		Assertions.assertEquals(1, accesses.size());
+		Assertions.assertTrue(shown.isEmpty());
+		accesses.get(0).execute();
+
+		Assertions.assertEquals(List.of("counts"), shown);
+		Assertions.assertTrue(failures.isEmpty());
+	}
+
+	@Test
+	public void failedPartShowsTheErrorStateInUiAccess() {
+		CompletableFuture<String> part = new CompletableFuture<>();
+		DashboardView.show(accesses::add, part.thenApply(String::trim), shown::add, failures::add);
+
+		IllegalStateException error = new IllegalStateException("Query failed");
+		part.completeExceptionally(error);
+		Assertions.assertEquals(1, accesses.size());
+		Assertions.assertTrue(failures.isEmpty());
+		accesses.get(0).execute();
+
+		Assertions.assertEquals(List.of(error), failures);
+		Assertions.assertTrue(shown.isEmpty());
+	}
+
+	@Test
+	public void partFailedBeforeTheViewIsShownRightAway() {
+		IllegalStateException error = new IllegalStateException("Query failed");
+		DashboardView.show(accesses::add, CompletableFuture.failedFuture(error), shown::add, failures::add);
+
+		Assertions.assertTrue(accesses.isEmpty());
+		Assertions.assertEquals(List.of(error), failures);
+	}
+
+	@Test
+	public void partCompletedAfterTheViewWasClosedIsDropped() {
+		CompletableFuture<String> part = new CompletableFuture<>();
+		DashboardView.show(command -> {
+			throw new UIDetachedException();
+		}, part, shown::add, failures::add);
+
+		part.completeExceptionally(new IllegalStateException("Query failed"));
+
+		Assertions.assertTrue(shown.isEmpty());
+		Assertions.assertTrue(failures.isEmpty());
+	}
+}
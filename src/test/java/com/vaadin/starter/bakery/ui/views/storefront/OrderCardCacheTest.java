@@ -0,0 +1,50 @@
+package com.vaadin.starter.bakery.ui.views.storefront;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.OrderState;
+import com.vaadin.starter.bakery.test.FormattingTest;
+
+public class OrderCardCacheTest extends FormattingTest {
+
+	private final OrderCardCache cache = new OrderCardCache(100);
+
+	@Test
+	public void cardIsSharedWhileTheOrderIsUnchanged() {
+		OrderCard card = cache.get(order(1, "Jane Doe", 2));
+
+		Assertions.assertSame(card, cache.get(order(1, "Jane Doe", 2)));
+		Assertions.assertEquals("Jane Doe", card.getFullName());
+		Assertions.assertEquals(2, card.getItems().get(0).getQuantity());
+	}
+
+	@Test
+	public void changedOrderGetsANewCard() {
+		OrderCard card = cache.get(order(1, "Jane Doe", 2));
+
+		Assertions.assertNotSame(card, cache.get(order(2, "Jane Doe", 2)));
+		// Neither changes the version of the order
+		Assertions.assertEquals("John Doe", cache.get(order(2, "John Doe", 2)).getFullName());
+		Assertions.assertEquals(3, cache.get(order(2, "John Doe", 3)).getItems().get(0).getQuantity());
+	}
+
+	@Test
+	public void cardOfTodayShowsTheTime() {
+		OrderCard card = cache.get(order(1, "Jane Doe", 2));
+
+		Assertions.assertEquals("Bakery", card.getPlace());
+		Assertions.assertEquals("9:30 AM", card.getTime());
+		Assertions.assertNull(card.getMonth());
+	}
+
+	private static OrderCardData order(int version, String customer, int quantity) {
+		return new OrderCardData(1L, version, LocalDate.now(), LocalTime.of(9, 30), OrderState.NEW, customer,
+				"Bakery", List.of(new OrderCardData.Item("Strawberry Bun", quantity)));
+	}
+}
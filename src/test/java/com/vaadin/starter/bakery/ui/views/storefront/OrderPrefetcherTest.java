@@ -0,0 +1,99 @@
+package com.vaadin.starter.bakery.ui.views.storefront;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.vaadin.starter.bakery.backend.data.OrderCardData;
+import com.vaadin.starter.bakery.backend.data.entity.Order;
+import com.vaadin.starter.bakery.backend.repositories.OrderTestData;
+import com.vaadin.starter.bakery.backend.repositories.SqlStatementCounter;
+import com.vaadin.starter.bakery.backend.service.OrderDataTest;
+import com.vaadin.starter.bakery.backend.service.OrderService;
+
+@OrderDataTest
+public class OrderPrefetcherTest {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderService orderService;
+
+	private OrderPrefetcher prefetcher;
+
+	private List<Order> orders;
+
+	@BeforeEach
+	public void createOrders() {
+		OrderTestData testData = new OrderTestData(entityManager, 1L);
+		orders = testData.createOrders(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 8), 2);
+		entityManager.clear();
+		// Loads in the test transaction, which holds the orders
+		prefetcher = new OrderPrefetcher(orderService, Runnable::run, Duration.ofSeconds(30), 20);
+	}
+
+	@Test
+	public void selectedOrderIsTakenAfterAVersionLookup() {
+		OrderCardData card = OrderCardData.of(orders.get(0));
+		prefetcher.prefetch(card);
+		prefetcher.select(card);
+		SqlStatementCounter.reset();
+
+		Order order = prefetcher.take(card.getId()).orElseThrow();
+
+		Assertions.assertEquals(card.getId(), order.getId());
+		Assertions.assertFalse(order.getItems().isEmpty());
+		Assertions.assertEquals(1, SqlStatementCounter.getStatements().size(),
+				SqlStatementCounter.getStatements().toString());
+		Assertions.assertEquals(1, SqlStatementCounter.count(".version from order_info "),
+				SqlStatementCounter.getStatements().toString());
+		// Taken only once
+		Assertions.assertTrue(prefetcher.take(card.getId()).isEmpty());
+	}
+
+	@Test
+	public void orderIsOnlyTakenForTheSelectedCard() {
+		OrderCardData card = OrderCardData.of(orders.get(0));
+		prefetcher.prefetch(card);
+
+		Assertions.assertTrue(prefetcher.take(card.getId()).isEmpty());
+
+		prefetcher.select(OrderCardData.of(orders.get(1)));
+		Assertions.assertTrue(prefetcher.take(card.getId()).isEmpty());
+	}
+
+	@Test
+	public void orderChangedSinceThePrefetchIsNotTaken() {
+		OrderCardData card = OrderCardData.of(orders.get(0));
+		prefetcher.select(card);
+		entityManager.clear();
+		Order order = orderService.load(card.getId());
+		order.setDueDate(order.getDueDate().plusDays(1));
+		entityManager.flush();
+		entityManager.clear();
+
+		Assertions.assertTrue(prefetcher.take(card.getId()).isEmpty());
+	}
+
+	@Test
+	public void orderChangedBeforeThePrefetchIsTaken() {
+		OrderCardData card = OrderCardData.of(orders.get(0));
+		Order order = orderService.load(card.getId());
+		order.setDueDate(order.getDueDate().plusDays(1));
+		entityManager.flush();
+		entityManager.clear();
+
+		// The card is outdated, the prefetched order is not
+		prefetcher.select(card);
+
+		Assertions.assertEquals(card.getVersion() + 1, prefetcher.take(card.getId()).orElseThrow().getVersion());
+	}
+}
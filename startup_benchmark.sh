@@ -0,0 +1,37 @@
+#!/bin/bash
+
+## Compares the startup time of the application with and without the Spring AOT
+## processing and the AppCDS archive. Build it first with
+##   mvn clean package -DskipTests -P production -P fast-startup
+
+PORT=${PORT:-8080}
+RUNS=${RUNS:-3}
+DIR=target/fast-startup
+JAR=$(ls $DIR/*.jar | head -1)
+
+run() {
+	NAME=$1
+	shift
+	for i in $(seq $RUNS); do
+		LOG=$(mktemp)
+		COOKIES=$(mktemp)
+		(cd $DIR && exec java "$@" -Dserver.port=$PORT -Dbakery.startup-timer.enabled=true \
+			-jar $(basename $JAR)) > $LOG 2>&1 &
+		PID=$!
+		until curl -s -o /dev/null -c $COOKIES http://localhost:$PORT/login; do
+			sleep 0.05
+		done
+		## The login view is public, its init request returns the first UIDL
+		curl -s -o /dev/null -b $COOKIES "http://localhost:$PORT/?v-r=init&location=login"
+		until grep -q "first UIDL response" $LOG; do
+			sleep 0.05
+		done
+		kill $PID
+		wait $PID 2>/dev/null
+		grep "Startup timing" $LOG | sed "s/^.*Startup timing: /$NAME: /"
+		rm $LOG $COOKIES
+	done
+}
+
+run "default" -Dspring.aot.enabled=false
+run "aot+cds" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true